@@ -0,0 +1,281 @@
+/*
+ * Parallel batch driver for assignment 2 of RMIT Algorithms & Analysis, 2020
+ * semester 1.
+ *
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * Implemented by Dylan Pleiter (s3252987)
+ */
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import grid.*;
+import solver.*;
+
+
+/**
+ * Solves many puzzles across several worker threads.  Input and output are
+ * the same as SudokuBatch.
+ *
+ * Solvers and grids keep mutable search state in their fields, so each
+ * worker thread constructs and reuses its own pair.  Puzzles are read in
+ * chunks and each chunk is split into fork-join tasks, letting idle workers
+ * steal work from busy ones.  Results are written in input order once the
+ * whole chunk has been solved.
+ */
+public class ParallelSudokuBatch
+{
+    /**
+     * Number of puzzles read and solved together before results are written.
+     */
+    private static final int CHUNK_SIZE = 4096;
+
+    /**
+     * Largest range of puzzles a task solves itself instead of splitting.
+     */
+    private static final int LEAF_SIZE = 4;
+
+    private ForkJoinPool pool;
+
+    /**
+     * Grid and solver of the current worker thread.
+     */
+    private ThreadLocal<RmitSudoku.SolverGridPair> workerPair;
+
+    /**
+     * Every worker's grid and solver, so the solvers can be closed at the end.
+     */
+    private List<RmitSudoku.SolverGridPair> workerPairs =
+        Collections.synchronizedList(new ArrayList<RmitSudoku.SolverGridPair>());
+
+    private int numPuzzles;
+    private int numSolved;
+    private long totalSolveTime;
+
+
+    public ParallelSudokuBatch(final String gameType, final String solverType, int numThreads) {
+        pool = new ForkJoinPool(numThreads);
+
+        workerPair = new ThreadLocal<RmitSudoku.SolverGridPair>() {
+            @Override
+            protected RmitSudoku.SolverGridPair initialValue() {
+                RmitSudoku.SolverGridPair pair = RmitSudoku.initSolver(gameType, solverType);
+                workerPairs.add(pair);
+
+                return pair;
+            }
+        };
+    } // end of ParallelSudokuBatch()
+
+
+    /**
+     * Solve every puzzle in the input and write the solutions out.
+     *
+     * @param inputName Directory of puzzle files or a single puzzle file.
+     * @param outFilename File to write the solved grids to.
+     *
+     * @throws FileNotFoundException If the input is not found.
+     * @throws IOException If reading the input or writing the output fails.
+     */
+    public void run(String inputName, String outFilename)
+        throws FileNotFoundException, IOException
+    {
+        GridWriter outfile = new GridWriter(new FileOutputStream(outFilename));
+        List<PuzzleResult> chunk = new ArrayList<PuzzleResult>(CHUNK_SIZE);
+
+        long startTime = System.nanoTime();
+
+        try {
+            for (File inputFile : SudokuBatch.listInputFiles(inputName)) {
+                if (PuzzleContainer.isContainer(inputFile)) {
+                    // Workers load puzzles from the mapped file themselves
+                    PuzzleContainer container = new PuzzleContainer(inputFile.getPath());
+
+                    try {
+                        for (int index = 0; index < container.getNumPuzzles(); index++) {
+                            chunk.add(new PuzzleResult(inputFile.getName() + "#" + (index + 1), container, index));
+
+                            if (chunk.size() == CHUNK_SIZE) {
+                                solveChunk(chunk, outfile);
+                            }
+                        }
+
+                        // The chunk can't outlive its container
+                        solveChunk(chunk, outfile);
+                    }
+                    finally {
+                        container.close();
+                    }
+
+                    continue;
+                }
+
+                InputStream file = new FileInputStream(inputFile);
+
+                try {
+                    PuzzleReader reader = new PuzzleReader(file);
+                    int puzzleNum = 0;
+                    byte[] puzzleBytes = reader.readPuzzleBytes();
+
+                    while (puzzleBytes != null) {
+                        puzzleNum++;
+                        chunk.add(new PuzzleResult(inputFile.getName() + "#" + puzzleNum, puzzleBytes));
+
+                        if (chunk.size() == CHUNK_SIZE) {
+                            solveChunk(chunk, outfile);
+                        }
+
+                        puzzleBytes = reader.readPuzzleBytes();
+                    }
+                }
+                finally {
+                    file.close();
+                }
+            }
+
+            solveChunk(chunk, outfile);
+        }
+        finally {
+            outfile.close();
+            pool.shutdown();
+
+            for (RmitSudoku.SolverGridPair pair : workerPairs) {
+                pair.solver.close();
+            }
+        }
+
+        long endTime = System.nanoTime();
+
+        System.out.println("puzzles = " + numPuzzles + ", solved = " + numSolved
+            + ", total solve time = " + ((double) totalSolveTime) / Math.pow(10, 9) + " sec."
+            + ", elapsed time = " + ((double) (endTime - startTime)) / Math.pow(10, 9) + " sec.");
+    } // end of run()
+
+
+    /**
+     * Solve a chunk of puzzles on the pool, then write the results in input
+     * order and empty the chunk.
+     */
+    private void solveChunk(List<PuzzleResult> chunk, GridWriter outfile) throws IOException {
+        pool.invoke(new SolveTask(chunk, 0, chunk.size()));
+
+        for (PuzzleResult result : chunk) {
+            if (result.error != null) {
+                System.err.println(result.name + ": could not load puzzle. " + result.error);
+                continue;
+            }
+
+            numPuzzles++;
+            totalSolveTime += result.solveTime;
+
+            if (result.bSolved) {
+                numSolved++;
+            }
+
+            System.out.println(SudokuBatch.formatResult(result.name, result.bSolved, result.bValid,
+                result.solveTime));
+
+            if (numPuzzles > 1) {
+                outfile.newLine();
+            }
+            outfile.write(result.solution);
+        }
+
+        chunk.clear();
+    } // end of solveChunk()
+
+
+    /**
+     * Load and solve one puzzle with the grid and solver of the current
+     * worker thread.
+     */
+    private void solvePuzzle(PuzzleResult result) {
+        RmitSudoku.SolverGridPair pair = workerPair.get();
+
+        try {
+            if (result.container != null) {
+                result.container.initGrid(pair.grid, result.index);
+            }
+            else {
+                pair.grid.initGrid(new PuzzleReader(result.bytes, result.bytes.length));
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            result.error = e.getMessage();
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        result.bSolved = pair.solver.solve(pair.grid);
+        long endTime = System.nanoTime();
+
+        result.solveTime = endTime - startTime;
+        result.bValid = pair.grid.validate();
+        result.solution = GridWriter.toBytes(pair.grid);
+    } // end of solvePuzzle()
+
+
+    /**
+     * Fork-join task solving a range of a chunk, split in halves until the
+     * range is small.
+     */
+    private class SolveTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private List<PuzzleResult> chunk;
+        private int start;
+        private int end;
+
+        public SolveTask(List<PuzzleResult> chunk, int start, int end) {
+            this.chunk = chunk;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= LEAF_SIZE) {
+                for (int i = start; i < end; i++) {
+                    solvePuzzle(chunk.get(i));
+                }
+            }
+            else {
+                int mid = (start + end) >>> 1;
+
+                invokeAll(new SolveTask(chunk, start, mid), new SolveTask(chunk, mid, end));
+            }
+        }
+    } // end of class SolveTask
+
+
+    /**
+     * Input and outcome of one puzzle.
+     */
+    private static class PuzzleResult {
+        public String name;
+        public byte[] bytes;
+
+        // Set instead of bytes for a puzzle in a container
+        public PuzzleContainer container;
+        public int index;
+
+        public byte[] solution;
+        public String error;
+        public boolean bSolved;
+        public boolean bValid;
+        public long solveTime;
+
+        public PuzzleResult(String name, byte[] bytes) {
+            this.name = name;
+            this.bytes = bytes;
+        }
+
+        public PuzzleResult(String name, PuzzleContainer container, int index) {
+            this.name = name;
+            this.container = container;
+            this.index = index;
+        }
+    } // end of class PuzzleResult
+
+} // end of class ParallelSudokuBatch
@@ -9,6 +9,7 @@
  */
 
 import java.io.*;
+import java.util.*;
 
 import grid.*;
 import solver.*;
@@ -29,12 +30,37 @@ public class RmitSudoku
      */
     protected static final String progName = "RmitSudoku";
 
+    /**
+     * Prefix of Sudoku solver types that propagate singles before solving.
+     */
+    private static final String SINGLES_PREFIX = "singles+";
+
 
     /**
      *
      * @param args the command line arguments
      */
     public static void main(String[] args) {
+        // batch mode, many puzzles through one solver
+        if (args.length > 0 && args[0].compareTo("-batch") == 0) {
+            runBatch(args);
+            return;
+        }
+
+        // convert text puzzles to a binary container
+        if (args.length > 0 && args[0].compareTo("-convert") == 0) {
+            runConvert(args);
+            return;
+        }
+
+        // optional flag, print search statistics after solving
+        boolean bStats = false;
+        List<String> argList = new ArrayList<String>(Arrays.asList(args));
+        if (argList.remove("-stats")) {
+            bStats = true;
+            args = argList.toArray(new String[0]);
+        }
+
         // read command line arguments
 	    if (args.length < 4) {
 	        System.err.println("Incorrect number of arguments.\n");
@@ -67,21 +93,7 @@ public class RmitSudoku
         SudokuSolver solver = null;
         SudokuGrid grid = null;
         // used to return constructed solver and grid
-        SolverGridPair pair = new SolverGridPair();
-
-        // which type of game?
-        // construct corresponding grid and solver
-        switch (gameType) {
-            case "sudoku":
-                initSudokuSolver(solverType, pair);
-                break;
-            case "killer":
-                initKillerSolver(solverType, pair);
-                break;
-            default:
-                System.err.println("Unknown game type specified.\n");
-                usage(progName);
-        }
+        SolverGridPair pair = initSolver(gameType, solverType);
 
         // retrieve constructed grid and pair
         grid = pair.grid;
@@ -90,6 +102,8 @@ public class RmitSudoku
         assert(grid != null);
         assert(solver != null);
 
+        solver.setStatsEnabled(bStats);
+
         // start timer
         long startTime = System.nanoTime();
 
@@ -128,6 +142,12 @@ public class RmitSudoku
             System.out.println("time taken = "
                 + ((double)(endTime - startTime)) / Math.pow(10, 9) + " sec.\n");
 
+            // display search statistics
+            if (bStats) {
+                System.out.println("Search statistics:");
+                System.out.println(solver.getStats());
+            }
+
 
             // Check and validate solution
             if (grid.validate()) {
@@ -150,8 +170,150 @@ public class RmitSudoku
         catch (IOException e) {
             System.err.println("IOExeption occurred. " + e.getMessage());
         }
+        finally {
+            solver.close();
+        }
     } // end of main()
 
+    /**
+     * Run batch mode.  Arguments are -batch followed by the input directory or
+     * puzzle file, game type, solver type, output filename and optionally the
+     * number of worker threads.
+     *
+     * @param args the command line arguments
+     */
+    private static void runBatch(String[] args) {
+        if (args.length != 5 && args.length != 6) {
+            System.err.println("Incorrect number of arguments.\n");
+            usage(progName);
+        }
+
+        // also checks the game and solver types before any worker starts
+        SolverGridPair pair = initSolver(args[2], args[3]);
+
+        int numThreads = 1;
+        if (args.length > 5) {
+            try {
+                numThreads = Integer.parseInt(args[5]);
+            }
+            catch (NumberFormatException e) {
+                numThreads = 0;
+            }
+
+            if (numThreads < 1) {
+                System.err.println("Number of threads must be a positive integer.\n");
+                usage(progName);
+            }
+        }
+
+        try {
+            if (numThreads > 1) {
+                ParallelSudokuBatch batch = new ParallelSudokuBatch(args[2], args[3], numThreads);
+
+                batch.run(args[1], args[4]);
+            }
+            else {
+                SudokuBatch batch = new SudokuBatch(pair.grid, pair.solver);
+
+                batch.run(args[1], args[4]);
+            }
+        }
+        catch (FileNotFoundException e) {
+            System.err.println("File not found. " + e.getMessage());
+        }
+        catch (IOException e) {
+            System.err.println("IOExeption occurred. " + e.getMessage());
+        }
+        finally {
+            pair.solver.close();
+        }
+    } // end of runBatch()
+
+    /**
+     * Run convert mode.  Arguments are -convert followed by the input directory
+     * or puzzle file, game type and output container filename.  Puzzles that
+     * fail to load, or differ in size or digits from the first puzzle, are
+     * reported and left out.
+     *
+     * @param args the command line arguments
+     */
+    private static void runConvert(String[] args) {
+        if (args.length != 4) {
+            System.err.println("Incorrect number of arguments.\n");
+            usage(progName);
+        }
+
+        SudokuGrid grid = null;
+
+        if (args[2].compareTo("sudoku") == 0) {
+            grid = new StdSudokuGrid();
+        }
+        else if (args[2].compareTo("killer") == 0) {
+            grid = new KillerSudokuGrid();
+        }
+        else {
+            System.err.println("Unknown game type specified.\n");
+            usage(progName);
+        }
+
+        try {
+            PuzzleContainerWriter writer = new PuzzleContainerWriter(args[3]);
+            int numPuzzles = 0;
+
+            try {
+                for (File inputFile : SudokuBatch.listInputFiles(args[1])) {
+                    if (PuzzleContainer.isContainer(inputFile)) {
+                        continue;
+                    }
+
+                    InputStream file = new FileInputStream(inputFile);
+
+                    try {
+                        PuzzleReader reader = new PuzzleReader(file);
+                        int puzzleNum = 0;
+
+                        while (reader.nextPuzzle()) {
+                            puzzleNum++;
+
+                            try {
+                                grid.initGrid(reader);
+                            }
+                            catch (IOException | RuntimeException e) {
+                                System.err.println(inputFile.getName() + "#" + puzzleNum
+                                    + ": could not load puzzle. " + e.getMessage());
+                                reader.skipPuzzle();
+                                continue;
+                            }
+
+                            if (!writer.matches(grid)) {
+                                System.err.println(inputFile.getName() + "#" + puzzleNum
+                                    + ": left out, size or digits differ from the first puzzle.");
+                                continue;
+                            }
+
+                            writer.add(grid);
+                            numPuzzles++;
+                        }
+                    }
+                    finally {
+                        file.close();
+                    }
+                }
+            }
+            finally {
+                writer.close();
+            }
+
+            System.out.println("puzzles = " + numPuzzles);
+        }
+        catch (FileNotFoundException e) {
+            System.err.println("File not found. " + e.getMessage());
+        }
+        catch (IOException e) {
+            System.err.println("IOExeption occurred. " + e.getMessage());
+        }
+    } // end of runConvert()
+
     /* ************************************************* */
 
     /**
@@ -161,16 +323,48 @@ public class RmitSudoku
      */
     public static void usage(String progName) {
 
-        System.err.println(progName + ": [grid fileName] [game type] [solver type] [visualisation] <output filename>");
+        System.err.println(progName + ": [grid fileName] [game type] [solver type] [visualisation] <output filename> <-stats>");
         System.err.println("[game type] = {sudoku | killer}");
-        System.err.println("[solver type] (for Sudoku) = {backtracking | algorx | dancing}");
-        System.err.println("[solver type] (for Killer Sudoku) = {backtracking | advanced}");
+        System.err.println("[solver type] (for Sudoku) = {backtracking | bitmask | algorx | algorxbitset | algorxsparse | dancing | dancingparallel | propagating}");
+        System.err.println("    any Sudoku solver type can be prefixed with " + SINGLES_PREFIX + " to fill singles first");
+        System.err.println("[solver type] (for Killer Sudoku) = {backtracking | pruning | advanced | dancing}");
         System.err.println("<visualisation> = <y | n>");
+        System.err.println(progName + " -batch [input directory | puzzle file | container] [game type] [solver type] [output filename] <threads>");
+        System.err.println(progName + " -convert [input directory | puzzle file] [game type] [container filename]");
 
 	    System.exit(1);
     } // end of usage()
 
 
+    /**
+     * Contruct appropriate grid and solver for the given game.
+     *
+     * @param gameType Type of game, sudoku or killer.
+     * @param solverType Type of solver we want to use and construct.
+     *
+     * @return The constructed grid and solver.
+     */
+    protected static SolverGridPair initSolver(String gameType, String solverType) {
+        SolverGridPair pair = new SolverGridPair();
+
+        // which type of game?
+        // construct corresponding grid and solver
+        switch (gameType) {
+            case "sudoku":
+                initSudokuSolver(solverType, pair);
+                break;
+            case "killer":
+                initKillerSolver(solverType, pair);
+                break;
+            default:
+                System.err.println("Unknown game type specified.\n");
+                usage(progName);
+        }
+
+        return pair;
+    } // end of initSolver()
+
+
     /**
      * Contruct appropriate grid and solver for (standard) Sudoku.
      *
@@ -182,6 +376,13 @@ public class RmitSudoku
         SudokuGrid grid = null;
         SudokuSolver solver = null;
 
+        // "singles+" before a solver type fills naked and hidden singles first
+        if (solverType.startsWith(SINGLES_PREFIX)) {
+            initSudokuSolver(solverType.substring(SINGLES_PREFIX.length()), pair);
+            pair.solver = new PropagatingSolver((StdSudokuSolver) pair.solver);
+            return;
+        }
+
         // check with solver (and grid) to construct
         // currently all grids are the same for all solvers, but there are
         // possibility this might not be in the future iterations.
@@ -190,14 +391,34 @@ public class RmitSudoku
                 grid = new StdSudokuGrid();
                 solver = new BackTrackingSolver();
                 break;
+            case "bitmask":
+                grid = new StdSudokuGrid();
+                solver = new BitmaskBackTrackingSolver();
+                break;
             case "algorx":
                 grid = new StdSudokuGrid();
                 solver = new AlgorXSolver();
                 break;
+            case "algorxbitset":
+                grid = new StdSudokuGrid();
+                solver = new BitsetAlgorXSolver();
+                break;
+            case "algorxsparse":
+                grid = new StdSudokuGrid();
+                solver = new SparseAlgorXSolver();
+                break;
             case "dancing":
                 grid = new StdSudokuGrid();
                 solver = new DancingLinksSolver();
                 break;
+            case "dancingparallel":
+                grid = new StdSudokuGrid();
+                solver = new DancingLinksSolver(Runtime.getRuntime().availableProcessors());
+                break;
+            case "propagating":
+                grid = new StdSudokuGrid();
+                solver = new PropagatingSolver();
+                break;
             default:
                 System.err.println("Unknown solver type specified.\n");
                 usage(progName);
@@ -227,10 +448,18 @@ public class RmitSudoku
                 grid = new KillerSudokuGrid();
                 solver = new KillerBackTrackingSolver();
                 break;
+            case "pruning":
+                grid = new KillerSudokuGrid();
+                solver = new KillerPruningSolver();
+                break;
             case "advanced":
                 grid = new KillerSudokuGrid();
                 solver = new KillerAdvancedSolver();
                 break;
+            case "dancing":
+                grid = new KillerSudokuGrid();
+                solver = new KillerDancingLinksSolver();
+                break;
             default:
                 System.err.println("Unknown solver type specified.\n");
                 usage(progName);
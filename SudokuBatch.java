@@ -0,0 +1,217 @@
+/*
+ * Batch driver for assignment 2 of RMIT Algorithms & Analysis, 2020
+ * semester 1.
+ *
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * Implemented by Dylan Pleiter (s3252987)
+ */
+
+import java.io.*;
+import java.util.*;
+
+import grid.*;
+import solver.*;
+
+
+/**
+ * Solves many puzzles with one grid and one solver instance, so JVM startup
+ * and JIT warm-up are paid once per run instead of once per puzzle.
+ *
+ * The input is either a directory, in which case every ".in" file and
+ * puzzle container in it is read in name order, a single file holding one or
+ * more puzzles separated by blank lines, or a single puzzle container.
+ * Solved grids are written to the output file in the same
+ * format as outputGrid(), separated by blank lines, and a line with the
+ * result and solve time of each puzzle is printed to standard output.
+ */
+public class SudokuBatch
+{
+    private SudokuGrid grid;
+    private SudokuSolver solver;
+
+    private int numPuzzles;
+    private int numSolved;
+    private long totalSolveTime;
+
+
+    public SudokuBatch(SudokuGrid grid, SudokuSolver solver) {
+        this.grid = grid;
+        this.solver = solver;
+    } // end of SudokuBatch()
+
+
+    /**
+     * Solve every puzzle in the input and write the solutions out.
+     *
+     * @param inputName Directory of puzzle files or a single puzzle file.
+     * @param outFilename File to write the solved grids to.
+     *
+     * @throws FileNotFoundException If the input is not found.
+     * @throws IOException If reading the input or writing the output fails.
+     */
+    public void run(String inputName, String outFilename)
+        throws FileNotFoundException, IOException
+    {
+        GridWriter outfile = new GridWriter(new FileOutputStream(outFilename));
+
+        try {
+            for (File inputFile : listInputFiles(inputName)) {
+                if (PuzzleContainer.isContainer(inputFile)) {
+                    solveContainer(inputFile, outfile);
+                    continue;
+                }
+
+                InputStream file = new FileInputStream(inputFile);
+
+                try {
+                    solveAll(new PuzzleReader(file), inputFile.getName(), outfile);
+                }
+                finally {
+                    file.close();
+                }
+            }
+        }
+        finally {
+            outfile.close();
+        }
+
+        System.out.println("puzzles = " + numPuzzles + ", solved = " + numSolved
+            + ", total solve time = " + ((double) totalSolveTime) / Math.pow(10, 9) + " sec.");
+    } // end of run()
+
+
+    /**
+     * Solve every puzzle in an open puzzle stream.
+     *
+     * @param reader Reader over one or more puzzles separated by blank lines.
+     * @param sourceName Name used to identify the puzzles in the timing output.
+     * @param outfile Writer the solved grids are appended to.
+     *
+     * @throws IOException If reading the input or writing the output fails.
+     */
+    private void solveAll(PuzzleReader reader, String sourceName, GridWriter outfile)
+        throws IOException
+    {
+        int puzzleNum = 0;
+
+        while (reader.nextPuzzle()) {
+            puzzleNum++;
+
+            String puzzleName = sourceName + "#" + puzzleNum;
+
+            try {
+                grid.initGrid(reader);
+            }
+            catch (IOException | RuntimeException e) {
+                // report the bad puzzle and carry on with the next one
+                System.err.println(puzzleName + ": could not load puzzle. " + e.getMessage());
+                reader.skipPuzzle();
+                continue;
+            }
+
+            solveLoaded(puzzleName, outfile);
+        }
+    } // end of solveAll()
+
+
+    /**
+     * Solve every puzzle in a puzzle container, loading each straight from the
+     * mapped file.
+     *
+     * @param inputFile Container file.
+     * @param outfile Writer the solved grids are appended to.
+     *
+     * @throws IOException If reading the input or writing the output fails.
+     */
+    private void solveContainer(File inputFile, GridWriter outfile) throws IOException {
+        PuzzleContainer container = new PuzzleContainer(inputFile.getPath());
+
+        try {
+            for (int index = 0; index < container.getNumPuzzles(); index++) {
+                String puzzleName = inputFile.getName() + "#" + (index + 1);
+
+                try {
+                    container.initGrid(grid, index);
+                }
+                catch (IOException | RuntimeException e) {
+                    System.err.println(puzzleName + ": could not load puzzle. " + e.getMessage());
+                    continue;
+                }
+
+                solveLoaded(puzzleName, outfile);
+            }
+        }
+        finally {
+            container.close();
+        }
+    } // end of solveContainer()
+
+
+    /**
+     * Solve the puzzle loaded in the grid, print its result and write out the
+     * solved grid.
+     */
+    private void solveLoaded(String puzzleName, GridWriter outfile) throws IOException {
+        long startTime = System.nanoTime();
+        boolean bSolvedSuccess = solver.solve(grid);
+        long endTime = System.nanoTime();
+
+        numPuzzles++;
+        totalSolveTime += endTime - startTime;
+
+        if (bSolvedSuccess) {
+            numSolved++;
+        }
+
+        System.out.println(formatResult(puzzleName, bSolvedSuccess, grid.validate(), endTime - startTime));
+
+        if (numPuzzles > 1) {
+            outfile.newLine();
+        }
+        outfile.write(grid);
+    } // end of solveLoaded()
+
+
+    /**
+     * Timing line printed for each solved puzzle.
+     */
+    static String formatResult(String puzzleName, boolean bSolved, boolean bValid, long solveTime) {
+        return puzzleName + "\t" + (bSolved ? "solved" : "unsolved") + "\t"
+            + (bValid ? "valid" : "invalid") + "\t"
+            + ((double) solveTime) / Math.pow(10, 9) + " sec.";
+    } // end of formatResult()
+
+
+    /**
+     * Files to read puzzles from, either the single input file or the ".in"
+     * files and containers of an input directory in name order.
+     */
+    static List<File> listInputFiles(String inputName) throws FileNotFoundException {
+        File input = new File(inputName);
+        List<File> inputFiles = new ArrayList<File>();
+
+        if (input.isDirectory()) {
+            File[] files = input.listFiles();
+
+            if (files != null) {
+                for (File file : files) {
+                    if (file.isFile() && (file.getName().endsWith(".in")
+                            || file.getName().endsWith(PuzzleContainer.EXTENSION))) {
+                        inputFiles.add(file);
+                    }
+                }
+            }
+
+            Collections.sort(inputFiles);
+        }
+        else if (input.isFile()) {
+            inputFiles.add(input);
+        }
+        else {
+            throw new FileNotFoundException(inputName);
+        }
+
+        return inputFiles;
+    } // end of listInputFiles()
+
+} // end of class SudokuBatch
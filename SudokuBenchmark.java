@@ -0,0 +1,361 @@
+/*
+ * Benchmark harness for assignment 2 of RMIT Algorithms & Analysis, 2020
+ * semester 1.
+ *
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * Implemented by Dylan Pleiter (s3252987)
+ */
+
+import java.io.*;
+import java.util.*;
+import java.util.regex.Pattern;
+
+import grid.*;
+import solver.*;
+
+
+/**
+ * Benchmarks every solver over the puzzles in sampleGames.
+ *
+ * Each benchmark case is run in freshly forked JVMs.  Within a fork the case
+ * is run for a number of warm-up iterations, so the JIT has compiled the
+ * solver, followed by measured iterations.  An iteration keeps solving the
+ * same puzzle until at least the iteration time has passed and reports the
+ * average solve time.  Only solver.solve() is timed, the puzzle is reloaded
+ * into the grid from memory before each solve.
+ *
+ * Usage: SudokuBenchmark [-wi warm-up iterations] [-i iterations]
+ *        [-f forks] [-r iteration time in ms] [case pattern]
+ *
+ * Case names are "game/solver/puzzle", and only cases containing a match of
+ * the pattern (a regular expression) are run.  With -f 0 cases run in the
+ * current JVM, which is quicker but less reliable.
+ *
+ * Every solver is run on every puzzle of its game, except for cases a single
+ * solve of which takes far too long to be repeated for every iteration:
+ * Sudoku backtracking on 25x25 (about 20 s a solve), and Killer backtracking
+ * (over 2 minutes) and pruning (about 30 s) on 16x16.  These are listed in the
+ * summary as skipped.  There is no 25x25 Killer case at all, because none of
+ * the Killer solvers can solve one in benchmark time.
+ */
+public class SudokuBenchmark
+{
+    /**
+     * Directory the benchmark puzzles are read from.
+     */
+    private static final String PUZZLE_DIR = "sampleGames";
+
+    /**
+     * Puzzles for each game, smallest to largest.
+     */
+    private static final String[] SUDOKU_PUZZLES = {
+        "easy-std-44-01", "easy-std-99-01", "easy-std-1616-01", "easy-std-2525-01"
+    };
+    private static final String[] KILLER_PUZZLES = {
+        "easy-killer-44-01", "easy-killer-99-01", "easy-killer-1616-01"
+    };
+
+    /**
+     * Solver types for each game, as accepted by RmitSudoku.
+     */
+    private static final String[] SUDOKU_SOLVERS = {
+        "backtracking", "bitmask", "algorx", "algorxbitset", "algorxsparse", "dancing", "dancingparallel", "propagating",
+        "singles+backtracking", "singles+dancing"
+    };
+    private static final String[] KILLER_SOLVERS = {
+        "backtracking", "pruning", "advanced", "dancing"
+    };
+
+    /**
+     * Cases left out because one solve takes too long, see the class comment.
+     */
+    private static final Set<String> SKIPPED_CASES = new HashSet<String>(Arrays.asList(
+        "sudoku/backtracking/easy-std-2525-01",
+        "killer/backtracking/easy-killer-1616-01",
+        "killer/pruning/easy-killer-1616-01"
+    ));
+
+    /**
+     * Prefix of the line a forked JVM reports its iteration scores on.
+     */
+    private static final String RESULT_PREFIX = "RESULT ";
+
+    private int warmupIterations = 3;
+    private int iterations = 5;
+    private int forks = 1;
+    private long iterationTime = 1000;
+
+    /**
+     * Consumes solver results so the solves can't be optimised away.
+     */
+    private int sink;
+
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        SudokuBenchmark benchmark = new SudokuBenchmark();
+        String casePattern = "";
+        String forkedCase = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-wi":
+                        benchmark.warmupIterations = Integer.parseInt(args[++i]);
+                        break;
+                    case "-i":
+                        benchmark.iterations = Integer.parseInt(args[++i]);
+                        break;
+                    case "-f":
+                        benchmark.forks = Integer.parseInt(args[++i]);
+                        break;
+                    case "-r":
+                        benchmark.iterationTime = Long.parseLong(args[++i]);
+                        break;
+                    case "-run":
+                        // internal, used by forked JVMs
+                        forkedCase = args[++i];
+                        break;
+                    default:
+                        casePattern = args[i];
+                }
+            }
+        }
+        catch (RuntimeException e) {
+            usage();
+        }
+
+        try {
+            if (forkedCase != null) {
+                System.out.println(RESULT_PREFIX + forkedCase + " " + benchmark.runCase(forkedCase));
+            }
+            else {
+                benchmark.runAll(Pattern.compile(casePattern));
+            }
+        }
+        catch (IOException e) {
+            System.err.println("IOExeption occurred. " + e.getMessage());
+            System.exit(1);
+        }
+    } // end of main()
+
+
+    /**
+     * Print help/usage message.
+     */
+    private static void usage() {
+        System.err.println("SudokuBenchmark: [-wi warm-up iterations] [-i iterations] [-f forks] "
+            + "[-r iteration time in ms] [case pattern]");
+
+        System.exit(1);
+    } // end of usage()
+
+
+    /**
+     * Run every case matching the pattern and print a summary table.
+     */
+    private void runAll(Pattern casePattern) throws IOException {
+        List<String> caseNames = new ArrayList<String>();
+
+        addCases(caseNames, "sudoku", SUDOKU_SOLVERS, SUDOKU_PUZZLES);
+        addCases(caseNames, "killer", KILLER_SOLVERS, KILLER_PUZZLES);
+
+        System.out.printf("%-48s %8s %14s %14s%n", "case", "samples", "mean (us/op)", "stddev");
+
+        for (String caseName : caseNames) {
+            if (!casePattern.matcher(caseName).find()) {
+                continue;
+            }
+
+            if (SKIPPED_CASES.contains(caseName)) {
+                System.out.printf("%-48s %8s%n", caseName, "skipped");
+                continue;
+            }
+
+            List<Double> scores = new ArrayList<Double>();
+
+            if (forks == 0) {
+                parseScores(runCase(caseName), scores);
+            }
+            else {
+                for (int fork = 0; fork < forks; fork++) {
+                    runFork(caseName, scores);
+                }
+            }
+
+            printSummary(caseName, scores);
+        }
+    } // end of runAll()
+
+
+    private static void addCases(List<String> caseNames, String gameType, String[] solverTypes,
+        String[] puzzles)
+    {
+        for (String solverType : solverTypes) {
+            for (String puzzle : puzzles) {
+                caseNames.add(gameType + "/" + solverType + "/" + puzzle);
+            }
+        }
+    } // end of addCases()
+
+
+    /**
+     * Run a case in a new JVM with the same class path and collect its
+     * iteration scores.
+     */
+    private void runFork(String caseName, List<Double> scores) throws IOException {
+        String javaBin = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+
+        ProcessBuilder builder = new ProcessBuilder(javaBin, "-cp", System.getProperty("java.class.path"),
+            "SudokuBenchmark", "-wi", Integer.toString(warmupIterations), "-i", Integer.toString(iterations),
+            "-r", Long.toString(iterationTime), "-run", caseName);
+        builder.redirectErrorStream(true);
+
+        Process process = builder.start();
+        BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()));
+
+        try {
+            String outputLine = output.readLine();
+
+            while (outputLine != null) {
+                if (outputLine.startsWith(RESULT_PREFIX + caseName + " ")) {
+                    parseScores(outputLine.substring(RESULT_PREFIX.length() + caseName.length() + 1), scores);
+                }
+                else {
+                    System.out.println(caseName + ": " + outputLine);
+                }
+
+                outputLine = output.readLine();
+            }
+
+            process.waitFor();
+        }
+        catch (InterruptedException e) {
+            process.destroy();
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            output.close();
+        }
+    } // end of runFork()
+
+
+    /**
+     * Run the warm-up and measured iterations of a case in this JVM.
+     *
+     * @return Average solve time of each measured iteration in microseconds,
+     *          separated by spaces.
+     */
+    private String runCase(String caseName) throws IOException {
+        String[] parts = caseName.split("/");
+        String puzzleText = readFile(PUZZLE_DIR + File.separator + parts[2] + ".in");
+
+        RmitSudoku.SolverGridPair pair = RmitSudoku.initSolver(parts[0], parts[1]);
+        StringBuilder scores = new StringBuilder();
+
+        try {
+            for (int i = 0; i < warmupIterations; i++) {
+                runIteration(pair, puzzleText);
+            }
+
+            if (!pair.grid.validate() || !pair.grid.checkComplete()) {
+                System.out.println("warning: solver did not produce a valid solution");
+            }
+
+            for (int i = 0; i < iterations; i++) {
+                if (i > 0) {
+                    scores.append(' ');
+                }
+                scores.append(runIteration(pair, puzzleText));
+            }
+        }
+        finally {
+            pair.solver.close();
+        }
+
+        return scores.toString();
+    } // end of runCase()
+
+
+    /**
+     * Solve the puzzle repeatedly for at least the iteration time.
+     *
+     * @return Average solve time in microseconds.
+     */
+    private double runIteration(RmitSudoku.SolverGridPair pair, String puzzleText) throws IOException {
+        long solveTime = 0;
+        long numSolves = 0;
+
+        long iterationEnd = System.nanoTime() + iterationTime * 1000000L;
+
+        do {
+            pair.grid.initGrid(new BufferedReader(new StringReader(puzzleText)));
+
+            long startTime = System.nanoTime();
+            boolean bSolved = pair.solver.solve(pair.grid);
+            long endTime = System.nanoTime();
+
+            sink += bSolved ? 1 : 0;
+            solveTime += endTime - startTime;
+            numSolves++;
+        } while (System.nanoTime() < iterationEnd);
+
+        return ((double) solveTime) / numSolves / 1000;
+    } // end of runIteration()
+
+
+    private static void parseScores(String scoreLine, List<Double> scores) {
+        for (String score : scoreLine.trim().split(" ")) {
+            if (!score.isEmpty()) {
+                scores.add(Double.parseDouble(score));
+            }
+        }
+    } // end of parseScores()
+
+
+    private static void printSummary(String caseName, List<Double> scores) {
+        if (scores.isEmpty()) {
+            System.out.printf("%-48s %8s%n", caseName, "failed");
+            return;
+        }
+
+        double mean = 0;
+        for (double score : scores) {
+            mean += score;
+        }
+        mean /= scores.size();
+
+        double variance = 0;
+        for (double score : scores) {
+            variance += (score - mean) * (score - mean);
+        }
+        if (scores.size() > 1) {
+            variance /= scores.size() - 1;
+        }
+
+        System.out.printf("%-48s %8d %14.3f %14.3f%n", caseName, scores.size(), mean, Math.sqrt(variance));
+    } // end of printSummary()
+
+
+    private static String readFile(String filename) throws IOException {
+        BufferedReader file = new BufferedReader(new FileReader(filename));
+        StringBuilder text = new StringBuilder();
+
+        try {
+            String inputLine = file.readLine();
+
+            while (inputLine != null) {
+                text.append(inputLine).append('\n');
+                inputLine = file.readLine();
+            }
+        }
+        finally {
+            file.close();
+        }
+
+        return text.toString();
+    } // end of readFile()
+
+} // end of class SudokuBenchmark
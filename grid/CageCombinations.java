@@ -0,0 +1,169 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * Implemented by Dylan Pleiter (s3252987)
+ */
+package grid;
+
+import java.util.*;
+
+/**
+ * Table of the digits that can still appear in a cage, for one set of
+ * digits. A cage with a remaining sum, a number of empty cells and a set of
+ * digits already used can take any digit found in some combination of
+ * distinct unused digits, one per empty cell, adding up to the remaining
+ * sum. Results are bitmasks of digit positions, worked out on first use and
+ * then looked up in a hash table, so repeated queries cost O(1).
+ *
+ * Digits are assumed to be positive, as in every Killer Sudoku input.
+ */
+public class CageCombinations {
+    // Set on stored results that have at least one combination
+    private static final long FEASIBLE = 1L << 63;
+
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private ArrayList<Integer> digits;
+    private int[] values;
+    private long allDigits;
+
+    // Open addressing table keyed by (available digits, remaining sum, empty cells)
+    private long[] keyMasks;
+    private int[] keyParams;
+    private long[] results;
+    private int numEntries;
+
+    public CageCombinations(List<Integer> digits) {
+        if (digits.size() >= Long.SIZE) {
+            throw new IllegalArgumentException("Cage combinations support at most " + (Long.SIZE - 1) + " digits");
+        }
+
+        this.digits = new ArrayList<Integer>(digits);
+
+        values = new int[digits.size()];
+
+        for (int position = 0; position < values.length; position++) {
+            values[position] = digits.get(position);
+        }
+
+        allDigits = (1L << values.length) - 1;
+
+        keyMasks = new long[INITIAL_CAPACITY];
+        keyParams = new int[INITIAL_CAPACITY];
+        results = new long[INITIAL_CAPACITY];
+
+        Arrays.fill(keyParams, EMPTY);
+    } // end of CageCombinations()
+
+    /**
+     * @return True if this table was built for the given digits, in order.
+     */
+    public boolean hasDigits(List<Integer> digits) {
+        return this.digits.equals(digits);
+    } // end of hasDigits()
+
+    /**
+     * @param sum Sum the empty cells of the cage still need to add up to.
+     * @param numCells Number of empty cells in the cage.
+     * @param usedMask Digit positions already used in the cage.
+     *
+     * @return Bitmask of digit positions appearing in at least one
+     *          combination, 0 if there are none.
+     */
+    public long getPossibleDigits(int sum, int numCells, long usedMask) {
+        return combine(sum, numCells, allDigits & ~usedMask) & ~FEASIBLE;
+    } // end of getPossibleDigits()
+
+    private long combine(int sum, int numCells, long available) {
+        /*
+         * Union of the combinations of numCells digits from available adding up to
+         * sum, with FEASIBLE set if there is any. Each combination is counted once,
+         * from its lowest digit position
+         */
+        if (numCells == 0) {
+            return sum == 0 ? FEASIBLE : 0;
+        }
+
+        if (sum <= 0 || Long.bitCount(available) < numCells) {
+            return 0;
+        }
+
+        int params = (sum << 6) | numCells;
+        int slot = findSlot(available, params);
+
+        if (keyParams[slot] != EMPTY) {
+            return results[slot];
+        }
+
+        long result = 0;
+        long remaining = available;
+
+        while (remaining != 0) {
+            int position = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+
+            if (values[position] > sum) {
+                continue;
+            }
+
+            long rest = combine(sum - values[position], numCells - 1, remaining);
+
+            if (rest != 0) {
+                result |= rest | (1L << position);
+            }
+        }
+
+        store(available, params, result);
+
+        return result;
+    }
+
+    private int findSlot(long available, int params) {
+        // Slot holding the key, or the empty slot it would go in
+        int mask = keyParams.length - 1;
+        long hash = (available ^ ((long) params << 32) ^ params) * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash >>> 40) & mask;
+
+        while (keyParams[slot] != EMPTY && (keyParams[slot] != params || keyMasks[slot] != available)) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private void store(long available, int params, long result) {
+        // The table may have grown while the result was worked out, so find the slot again
+        if (2 * (numEntries + 1) > keyParams.length) {
+            grow();
+        }
+
+        int slot = findSlot(available, params);
+
+        keyMasks[slot] = available;
+        keyParams[slot] = params;
+        results[slot] = result;
+        numEntries++;
+    }
+
+    private void grow() {
+        long[] oldMasks = keyMasks;
+        int[] oldParams = keyParams;
+        long[] oldResults = results;
+
+        keyMasks = new long[2 * oldParams.length];
+        keyParams = new int[2 * oldParams.length];
+        results = new long[2 * oldParams.length];
+
+        Arrays.fill(keyParams, EMPTY);
+
+        for (int i = 0; i < oldParams.length; i++) {
+            if (oldParams[i] != EMPTY) {
+                int slot = findSlot(oldMasks[i], oldParams[i]);
+
+                keyMasks[slot] = oldMasks[i];
+                keyParams[slot] = oldParams[i];
+                results[slot] = oldResults[i];
+            }
+        }
+    }
+} // end of class CageCombinations
@@ -0,0 +1,106 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * Implemented by Dylan Pleiter (s3252987)
+ */
+package grid;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Lookup from a digit's value to its position in the digit list, shared by
+ * the grids.
+ *
+ * Digits that span a narrow range of values are looked up directly in an
+ * array offset by the smallest digit. Sparse digits, which could need an
+ * array of gigabytes, are kept sorted and binary searched instead.
+ */
+class DigitTable {
+    // Widest span of values given a direct table, as a multiple of the number of digits
+    private static final int MAX_SPREAD = 8;
+
+    // Direct lookup from digit value (offset by minDigit) to digit position, or null if sparse
+    private int[] directPositions;
+    private int minDigit;
+
+    // Sparse digits in ascending order, with the position of each
+    private int[] sortedDigits;
+    private int[] sortedPositions;
+
+    /**
+     * Build the lookup for a digit list.
+     *
+     * @throws IOException If a digit is listed twice.
+     */
+    DigitTable(List<Integer> digits) throws IOException {
+        int numDigits = digits.size();
+
+        minDigit = Integer.MAX_VALUE;
+        int maxDigit = Integer.MIN_VALUE;
+
+        for (int digit : digits) {
+            minDigit = Math.min(minDigit, digit);
+            maxDigit = Math.max(maxDigit, digit);
+        }
+
+        // Range is worked out in longs, as it can be wider than an int
+        long range = (long) maxDigit - minDigit + 1;
+
+        if (range <= (long) MAX_SPREAD * Math.max(numDigits, 8)) {
+            directPositions = new int[(int) range];
+            Arrays.fill(directPositions, -1);
+
+            for (int position = 0; position < numDigits; position++) {
+                int index = digits.get(position) - minDigit;
+
+                if (directPositions[index] != -1) {
+                    throw new IOException("Duplicate digits detected");
+                }
+
+                directPositions[index] = position;
+            }
+
+            return;
+        }
+
+        // Sort the positions by their digit, then pull the digits out in that order
+        Integer[] order = new Integer[numDigits];
+
+        for (int position = 0; position < numDigits; position++) {
+            order[position] = position;
+        }
+
+        Arrays.sort(order, (a, b) -> Integer.compare(digits.get(a), digits.get(b)));
+
+        sortedDigits = new int[numDigits];
+        sortedPositions = new int[numDigits];
+
+        for (int i = 0; i < numDigits; i++) {
+            sortedDigits[i] = digits.get(order[i]);
+            sortedPositions[i] = order[i];
+
+            if (i > 0 && sortedDigits[i] == sortedDigits[i - 1]) {
+                throw new IOException("Duplicate digits detected");
+            }
+        }
+    }
+
+    /**
+     * @return Position of the digit in the digit list, or -1 if it isn't one.
+     */
+    int position(int digit) {
+        if (directPositions == null) {
+            int i = Arrays.binarySearch(sortedDigits, digit);
+
+            return i < 0 ? -1 : sortedPositions[i];
+        }
+
+        long index = (long) digit - minDigit;
+
+        if (index < 0 || index >= directPositions.length) {
+            return -1;
+        }
+
+        return directPositions[(int) index];
+    }
+} // end of class DigitTable
@@ -0,0 +1,183 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * Implemented by Dylan Pleiter (s3252987)
+ */
+package grid;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Writes grids in the output file format, one row per line with cells
+ * separated by commas and empty cells as a space. Each cell's digits are
+ * encoded straight into a reusable byte buffer, so many grids can be
+ * appended to one open stream without building a String for each.
+ *
+ * A writer with no stream just collects the bytes, growing its buffer as
+ * needed, which is how toString() and toBytes() are built.
+ */
+public class GridWriter implements Closeable, Flushable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Longest cell, a sign and 10 digits, and its separator
+    private static final int MAX_CELL_BYTES = 12;
+
+    private OutputStream stream;
+
+    private byte[] buffer;
+    private int position;
+
+    public GridWriter(OutputStream stream) {
+        this.stream = stream;
+
+        buffer = new byte[BUFFER_SIZE];
+    } // end of GridWriter()
+
+    private GridWriter(int capacity) {
+        buffer = new byte[capacity];
+    }
+
+    /**
+     * @return The grid as text, the same as written by write().
+     */
+    public static String toString(SudokuGrid grid) {
+        GridWriter writer = encode(grid);
+
+        return new String(writer.buffer, 0, writer.position, StandardCharsets.US_ASCII);
+    } // end of toString()
+
+    /**
+     * @return The grid as the bytes written by write(), so it can be encoded
+     *         on one thread and written out on another.
+     */
+    public static byte[] toBytes(SudokuGrid grid) {
+        GridWriter writer = encode(grid);
+
+        return Arrays.copyOf(writer.buffer, writer.position);
+    } // end of toBytes()
+
+    private static GridWriter encode(SudokuGrid grid) {
+        int gridDimensions = grid.getSize();
+        GridWriter writer = new GridWriter(Math.max(gridDimensions * gridDimensions * 3, MAX_CELL_BYTES));
+
+        try {
+            writer.write(grid);
+        } catch (IOException e) {
+            // Only a stream can fail, and this writer has none
+            throw new UncheckedIOException(e);
+        }
+
+        return writer;
+    }
+
+    /**
+     * Append the values in a grid.
+     */
+    public void write(SudokuGrid grid) throws IOException {
+        int gridDimensions = grid.getSize();
+
+        for (int row = 0; row < gridDimensions; row++) {
+            for (int col = 0; col < gridDimensions; col++) {
+                ensureSpace(MAX_CELL_BYTES);
+
+                int cellValue = grid.getCellValue(row, col);
+
+                if (cellValue == 0) {
+                    buffer[position++] = ' ';
+                } else {
+                    putInt(cellValue);
+                }
+
+                buffer[position++] = (byte) (col == gridDimensions - 1 ? '\n' : ',');
+            }
+        }
+    } // end of write()
+
+    /**
+     * Append bytes already encoded, such as by toBytes().
+     */
+    public void write(byte[] bytes) throws IOException {
+        if (stream != null && bytes.length > buffer.length) {
+            flushBuffer();
+            stream.write(bytes);
+            return;
+        }
+
+        ensureSpace(bytes.length);
+
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    } // end of write()
+
+    /**
+     * Append a line break, such as the blank line between two grids.
+     */
+    public void newLine() throws IOException {
+        ensureSpace(1);
+
+        buffer[position++] = '\n';
+    } // end of newLine()
+
+    private void putInt(int value) {
+        // Digits are written backwards from the end of the number
+        long remaining = value;
+
+        if (remaining < 0) {
+            buffer[position++] = '-';
+            remaining = -remaining;
+        }
+
+        int end = position;
+
+        do {
+            end++;
+            remaining /= 10;
+        } while (remaining != 0);
+
+        remaining = Math.abs((long) value);
+
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+
+        position = end;
+    }
+
+    private void ensureSpace(int numBytes) throws IOException {
+        if (position + numBytes <= buffer.length) {
+            return;
+        }
+
+        if (stream != null) {
+            flushBuffer();
+        } else {
+            buffer = Arrays.copyOf(buffer, Math.max(2 * buffer.length, position + numBytes));
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        stream.write(buffer, 0, position);
+        position = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (stream != null) {
+            flushBuffer();
+            stream.flush();
+        }
+    } // end of flush()
+
+    @Override
+    public void close() throws IOException {
+        if (stream != null) {
+            try {
+                flushBuffer();
+            } finally {
+                stream.close();
+            }
+        }
+    } // end of close()
+} // end of class GridWriter
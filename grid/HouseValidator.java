@@ -0,0 +1,204 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * Implemented by Dylan Pleiter (s3252987)
+ */
+package grid;
+
+import java.util.*;
+
+/**
+ * Checks that no row, column or box of a grid holds a digit twice.
+ *
+ * A full check makes one pass over the cells, marking each digit in a
+ * bitmask per house, and reuses its masks so it allocates nothing once
+ * sized. In incremental mode a count per house and digit is kept instead,
+ * along with the number of repeats, the same way cages track their digits.
+ * The grid reports every change of a cell, so a check is O(1). The counts
+ * are rebuilt by the first check after a new puzzle is loaded. With
+ * assertions enabled, each incremental check is compared with a full one.
+ */
+public class HouseValidator {
+    private int gridDimensions;
+    private int boxSize;
+
+    // Digits seen in each house during a full check, houseWords longs per house
+    private long[] houseMasks;
+    private int houseWords;
+
+    private boolean incremental;
+    // True once the counts match the grid, only while incremental
+    private boolean current;
+
+    // Times each digit position is in each house, at house * gridDimensions + position
+    private int[] houseCounts;
+    private int numDuplicates;
+
+    public HouseValidator() {
+        // No constructor needed
+    } // end of HouseValidator()
+
+    /**
+     * Switch incremental mode on or off. The counts are built by the next
+     * call to validate().
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+        current = false;
+    } // end of setIncremental()
+
+    public boolean isIncremental() {
+        return this.incremental;
+    } // end of isIncremental()
+
+    /**
+     * @return True if the counts are up to date, in which case the grid must
+     *         report every cell change through cellChanged().
+     */
+    public boolean isCurrent() {
+        return this.current;
+    } // end of isCurrent()
+
+    /**
+     * Forget the counts, as the grid has been replaced without reporting its
+     * changes.
+     */
+    public void reset() {
+        current = false;
+    } // end of reset()
+
+    /**
+     * Update the counts for a cell changing digits.
+     *
+     * @param oldPosition Digit position the cell held, or -1 if empty.
+     * @param newPosition Digit position the cell now holds, or -1 if empty.
+     */
+    public void cellChanged(int row, int col, int oldPosition, int newPosition) {
+        int box = (row / boxSize) * boxSize + col / boxSize;
+
+        if (oldPosition != -1) {
+            removeDigit(row, oldPosition);
+            removeDigit(gridDimensions + col, oldPosition);
+            removeDigit(2 * gridDimensions + box, oldPosition);
+        }
+
+        if (newPosition != -1) {
+            addDigit(row, newPosition);
+            addDigit(gridDimensions + col, newPosition);
+            addDigit(2 * gridDimensions + box, newPosition);
+        }
+    } // end of cellChanged()
+
+    /**
+     * @return True if no house of the grid repeats a digit. Empty cells are
+     *         ignored, and a value that is not one of the digits is invalid.
+     */
+    public boolean validate(SudokuGrid grid) {
+        if (current) {
+            assert (numDuplicates == 0) == scan(grid) : "House counts out of date";
+
+            return numDuplicates == 0;
+        }
+
+        resize(grid.getSize());
+
+        if (incremental) {
+            recount(grid);
+            return numDuplicates == 0;
+        }
+
+        return scan(grid);
+    } // end of validate()
+
+    private boolean scan(SudokuGrid grid) {
+        // Full check in one pass, marking each digit in its row, column and box
+        Arrays.fill(houseMasks, 0);
+
+        for (int row = 0; row < gridDimensions; row++) {
+            for (int col = 0; col < gridDimensions; col++) {
+                int cellValue = grid.getCellValue(row, col);
+
+                if (cellValue == 0)
+                    continue;
+
+                int position = grid.getDigitPosition(cellValue);
+                int box = (row / boxSize) * boxSize + col / boxSize;
+
+                if (position == -1 || !markDigit(row, position) || !markDigit(gridDimensions + col, position)
+                        || !markDigit(2 * gridDimensions + box, position)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private boolean markDigit(int house, int position) {
+        // Set the digit's bit in the house, false if it was already set
+        int word = house * houseWords + (position >>> 6);
+        long bit = 1L << position;
+
+        if ((houseMasks[word] & bit) != 0) {
+            return false;
+        }
+
+        houseMasks[word] |= bit;
+
+        return true;
+    }
+
+    private void recount(SudokuGrid grid) {
+        /*
+         * Build the counts from scratch. A value that isn't a digit can't be
+         * counted, so it is recorded as a repeat and the counts are left stale
+         */
+        Arrays.fill(houseCounts, 0);
+        numDuplicates = 0;
+
+        for (int row = 0; row < gridDimensions; row++) {
+            for (int col = 0; col < gridDimensions; col++) {
+                int cellValue = grid.getCellValue(row, col);
+
+                if (cellValue == 0)
+                    continue;
+
+                int position = grid.getDigitPosition(cellValue);
+
+                if (position == -1) {
+                    numDuplicates++;
+                    return;
+                }
+
+                cellChanged(row, col, -1, position);
+            }
+        }
+
+        current = true;
+    }
+
+    private void addDigit(int house, int position) {
+        if (houseCounts[house * gridDimensions + position]++ > 0) {
+            numDuplicates++;
+        }
+    }
+
+    private void removeDigit(int house, int position) {
+        if (--houseCounts[house * gridDimensions + position] > 0) {
+            numDuplicates--;
+        }
+    }
+
+    private void resize(int newDimensions) {
+        // Masks and counts are only reallocated when the grid size changes
+        if (houseMasks != null && newDimensions == gridDimensions && (!incremental || houseCounts != null)) {
+            return;
+        }
+
+        gridDimensions = newDimensions;
+        boxSize = (int) Math.sqrt(gridDimensions);
+        houseWords = (gridDimensions + 63) >>> 6;
+
+        houseMasks = new long[3 * gridDimensions * houseWords];
+        houseCounts = incremental ? new int[3 * gridDimensions * gridDimensions] : null;
+    }
+} // end of class HouseValidator
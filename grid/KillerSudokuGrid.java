@@ -22,6 +22,17 @@ public class KillerSudokuGrid extends SudokuGrid {
 
     private ArrayList<Cage> cages = new ArrayList<Cage>();
 
+    // Cage combination table for the current digits, kept while they don't change
+    private CageCombinations combinations;
+
+    // Lookup from digit value to digit position
+    private DigitTable digitTable;
+
+    // Checks rows, columns and boxes for repeats, incrementally if switched on
+    private HouseValidator validator = new HouseValidator();
+    // Number of cages that are not valid, or -1 if not being kept up to date
+    private int numInvalidCages = -1;
+
     public KillerSudokuGrid() {
         super();
     } // end of KillerSudokuGrid()
@@ -30,57 +41,89 @@ public class KillerSudokuGrid extends SudokuGrid {
 
     @Override
     public void initGrid(String filename) throws FileNotFoundException, IOException {
-        BufferedReader file = new BufferedReader(new FileReader(filename));
+        InputStream file = new FileInputStream(filename);
 
-        String inputLine = file.readLine();
-
-        gridDimensions = Integer.parseInt(inputLine);
-        grid = new Cell[gridDimensions][gridDimensions];
+        try {
+            PuzzleReader reader = new PuzzleReader(file);
 
-        inputLine = file.readLine();
-        String[] digitStrings = inputLine.split(" ");
+            initGrid(reader);
 
-        if (digitStrings.length != gridDimensions) {
+            // A blank line ends a puzzle, so anything after one would be silently dropped
+            if (reader.nextPuzzle()) {
+                throw new IOException("Unexpected input after a blank line, on line " + reader.getLineNumber());
+            }
+        } finally {
             file.close();
-            throw new IOException("Number of digits must equal grid dimensions");
         }
+    } // end of initGrid()
 
-        for (String digit : digitStrings) {
-            int newDigit = Integer.parseInt(digit);
+    @Override
+    public void initGrid(BufferedReader file) throws IOException {
+        initGrid(new PuzzleReader(file));
+    } // end of initGrid()
 
-            if (digits.contains(newDigit)) {
-                file.close();
-                throw new IOException("Duplicate digits detected");
+    @Override
+    public void initGrid(PuzzleReader reader) throws IOException {
+        // Reset any state from a previously loaded puzzle
+        digits.clear();
+        cages.clear();
+        validator.reset();
+        numInvalidCages = -1;
+
+        gridDimensions = reader.readInt();
+
+        if (gridDimensions <= 0 || !reader.endLine()) {
+            throw new IOException("First line must be the grid dimensions");
+        }
+
+        grid = new Cell[gridDimensions][gridDimensions];
+
+        // Unique digits, duplicates are found when the lookup table is built
+        while (reader.hasMoreOnLine()) {
+            if (digits.size() == gridDimensions) {
+                throw new IOException("Number of digits must equal grid dimensions");
             }
 
-            digits.add(Integer.parseInt(digit));
+            digits.add(reader.readInt());
+        }
+
+        reader.endLine();
+
+        if (digits.size() != gridDimensions) {
+            throw new IOException("Number of digits must equal grid dimensions");
+        }
+
+        buildDigitTable();
+
+        if (combinations == null || !combinations.hasDigits(digits)) {
+            combinations = new CageCombinations(digits);
         }
 
-        int numCages = Integer.parseInt(file.readLine());
+        int numCages = reader.readInt();
+
+        if (!reader.endLine()) {
+            throw new IOException("Third line must be the number of cages");
+        }
 
         int cageCounter = 0;
-        inputLine = file.readLine();
 
-        while (inputLine != null) {
+        while (!reader.endOfPuzzle()) {
             cageCounter++;
-            String[] strSplit = inputLine.split(" ");
 
-            Cage newCage = new Cage(Integer.parseInt(strSplit[0]));
+            Cage newCage = new Cage(reader.readInt());
             cages.add(newCage);
 
-            for (int i = 1; i < strSplit.length; i++) {
-                String[] coords = strSplit[i].split(",");
+            // Cells follow as row,col pairs
+            while (reader.hasMoreOnLine()) {
+                int row = reader.readInt();
 
-                if (coords.length != 2) {
-                    file.close();
+                if (!reader.hasMoreOnLine()) {
                     throw new IOException("Cell coordinates must have 2 integers");
                 }
 
-                int row = Integer.parseInt(coords[0]);
-                int col = Integer.parseInt(coords[1]);
+                int col = reader.readInt();
 
                 if (row < 0 || col < 0 || row >= gridDimensions || col >= gridDimensions) {
-                    file.close();
                     throw new IOException("Cell coordinate outside bounds of grid");
                 }
 
@@ -90,18 +133,15 @@ public class KillerSudokuGrid extends SudokuGrid {
                     newCage.addCell(newCell);
                     grid[row][col] = newCell;
                 } else {
-                    file.close();
                     throw new IOException("Duplicate cells in input. (" + row + ", " + col + ")");
                 }
             }
 
-            newCage.findCombinations(digits);
+            reader.endLine();
 
-            inputLine = file.readLine();
+            newCage.findCombinations(digits);
         }
 
-        file.close();
-
         if (cageCounter != numCages) {
             throw new IOException("Check number of expected cages");
         }
@@ -111,110 +151,113 @@ public class KillerSudokuGrid extends SudokuGrid {
         }
     } // end of initBoard()
 
-    @Override
-    public void outputGrid(String filename) throws FileNotFoundException, IOException {
-        BufferedWriter outfile = new BufferedWriter(new FileWriter(filename));
+    void startGrid(List<Integer> newDigits) throws IOException {
+        // Start an empty grid with no cages for the given digits, for a PuzzleContainer to fill in
+        if (!digits.equals(newDigits)) {
+            digits.clear();
+            digits.addAll(newDigits);
 
-        outfile.write(toString());
+            gridDimensions = digits.size();
+            buildDigitTable();
 
-        outfile.close();
-    } // end of outputBoard()
+            if (combinations == null || !combinations.hasDigits(digits)) {
+                combinations = new CageCombinations(digits);
+            }
+        }
 
-    @Override
-    public String toString() {
-        String outString = "";
-        int cellValue;
+        cages.clear();
+        grid = new Cell[gridDimensions][gridDimensions];
 
-        for (int row = 0; row < gridDimensions; row++) {
-            for (int col = 0; col < gridDimensions; col++) {
-                cellValue = grid[row][col].getValue();
+        validator.reset();
+        numInvalidCages = -1;
+    }
 
-                if (cellValue == 0) {
-                    outString += " ";
-                } else {
-                    outString += Integer.toString(cellValue);
-                }
+    void addCage(int targetValue, int[] cellIndices, int numCells) throws IOException {
+        // Add a cage over cells given as row * size + col
+        Cage newCage = new Cage(targetValue);
+        cages.add(newCage);
 
-                if (col == gridDimensions - 1) {
-                    outString += "\n";
-                } else {
-                    outString += ",";
-                }
-            }
-        }
+        for (int i = 0; i < numCells; i++) {
+            int row = cellIndices[i] / gridDimensions;
+            int col = cellIndices[i] % gridDimensions;
 
-        return outString;
-    } // end of toString()
+            if (cellIndices[i] < 0 || row >= gridDimensions) {
+                throw new IOException("Cell coordinate outside bounds of grid");
+            }
 
-    @Override
-    public boolean validate() {
-        int boxSize = (int) Math.sqrt(gridDimensions);
-        int cellValue;
+            if (grid[row][col] != null) {
+                throw new IOException("Duplicate cells in input. (" + row + ", " + col + ")");
+            }
 
-        HashSet<Integer> checker = new HashSet<Integer>();
+            Cell newCell = new Cell(row, col, newCage);
 
-        // Check rows
-        for (int row = 0; row < gridDimensions; row++) {
-            for (int col = 0; col < gridDimensions; col++) {
-                if (grid[row][col] == null) {
-                    return false;
-                }
+            newCage.addCell(newCell);
+            grid[row][col] = newCell;
+        }
 
-                cellValue = grid[row][col].getValue();
+        newCage.findCombinations(digits);
+    }
 
-                if (cellValue == 0)
-                    continue;
+    void finishGrid() throws IOException {
+        if (!validate()) {
+            throw new IOException("Error in grid validation. Check all cells have been accounted for.");
+        }
+    }
 
-                if (!checker.contains(cellValue)) {
-                    checker.add(cellValue);
-                } else {
-                    return false;
-                }
-            }
+    @Override
+    public void outputGrid(String filename) throws FileNotFoundException, IOException {
+        GridWriter outfile = new GridWriter(new FileOutputStream(filename));
 
-            checker.clear();
+        try {
+            outfile.write(this);
+        } finally {
+            outfile.close();
         }
+    } // end of outputBoard()
 
-        // Check columns
-        for (int col = 0; col < gridDimensions; col++) {
-            for (int row = 0; row < gridDimensions; row++) {
-                cellValue = grid[row][col].getValue();
-
-                if (cellValue == 0)
-                    continue;
+    @Override
+    public String toString() {
+        return GridWriter.toString(this);
+    } // end of toString()
 
-                if (!checker.contains(cellValue)) {
-                    checker.add(cellValue);
-                } else {
-                    return false;
+    @Override
+    public boolean validate() {
+        if (!validator.isCurrent()) {
+            // The grid is about to be scanned anyway, so check every cell is in a cage
+            for (Cell[] row : grid) {
+                for (Cell cell : row) {
+                    if (cell == null) {
+                        return false;
+                    }
                 }
             }
-
-            checker.clear();
         }
 
-        // Check boxes
-        for (int boxStartRow = 0; boxStartRow < gridDimensions; boxStartRow += boxSize) {
-            for (int boxStartCol = 0; boxStartCol < gridDimensions; boxStartCol += boxSize) {
-                for (int c = 0; c < boxSize; c++) {
-                    for (int d = 0; d < boxSize; d++) {
-                        cellValue = grid[boxStartRow + c][boxStartCol + d].getValue();
+        if (!validator.validate(this)) {
+            return false;
+        }
 
-                        if (cellValue == 0)
-                            continue;
+        if (validator.isCurrent()) {
+            // Incremental, so the invalid cages are counted once and then kept up to date
+            if (numInvalidCages == -1) {
+                numInvalidCages = 0;
 
-                        if (!checker.contains(cellValue)) {
-                            checker.add(cellValue);
-                        } else {
-                            return false;
-                        }
+                for (Cage cage : cages) {
+                    if (!cage.isValid()) {
+                        numInvalidCages++;
                     }
                 }
-
-                checker.clear();
             }
+
+            assert (numInvalidCages == 0) == cagesValid() : "Invalid cage count out of date";
+
+            return numInvalidCages == 0;
         }
 
+        return cagesValid();
+    } // end of validate()
+
+    private boolean cagesValid() {
         // Check cages
         for (Cage cage : cages) {
             if (!cage.isValid()) {
@@ -223,7 +266,13 @@ public class KillerSudokuGrid extends SudokuGrid {
         }
 
         return true;
-    } // end of validate()
+    }
+
+    @Override
+    public void setIncrementalValidation(boolean enabled) {
+        validator.setIncremental(enabled);
+        numInvalidCages = -1;
+    } // end of setIncrementalValidation()
 
     @Override
     public boolean checkComplete() {
@@ -265,22 +314,33 @@ public class KillerSudokuGrid extends SudokuGrid {
 
     @Override
     public void setCell(int row, int col, int value) {
+        Cell cell = this.grid[row][col];
+
+        if (validator.isCurrent()) {
+            validator.cellChanged(row, col, cell.getValue() == 0 ? -1 : getDigitPosition(cell.getValue()), value);
+        }
+
+        boolean wasValid = numInvalidCages != -1 && cell.getCage().isValid();
+
         if (value == -1) {
-            this.grid[row][col].setValue(0);
+            cell.setValue(0);
         } else {
-            this.grid[row][col].setValue(digits.get(value));
+            cell.setValue(digits.get(value));
+        }
+
+        if (numInvalidCages != -1 && wasValid != cell.getCage().isValid()) {
+            numInvalidCages += wasValid ? 1 : -1;
         }
     }
 
     @Override
     public int getDigitPosition(int digit) {
-        for (int position = 0; position < gridDimensions; position++) {
-            if (digits.get(position) == digit) {
-                return position;
-            }
-        }
+        return digitTable.position(digit);
+    }
 
-        return -1;
+    private void buildDigitTable() throws IOException {
+        // Value to position lookup from the digit list
+        digitTable = new DigitTable(digits);
     }
 
     public ArrayList<Cage> getCages() {
@@ -295,13 +355,26 @@ public class KillerSudokuGrid extends SudokuGrid {
         return this.grid[row][col].getCage();
     }
 
+    public CageCombinations getCombinations() {
+        return this.combinations;
+    }
+
     public class Cage {
         private ArrayList<Cell> cells = new ArrayList<Cell>();
-        private HashSet<Integer> possibleDigits = new HashSet<Integer>();
-        private HashSet<Integer> digitsInCage = new HashSet<Integer>();
+        private long possibleMask;
         private int currentValue;
         private int targetValue;
 
+        /*
+         * Digits in the cage as a bitmask of digit positions, with a count per
+         * position so duplicates are tracked too. Keeping these up to date as
+         * cells change makes the validity checks O(1)
+         */
+        private long digitMask;
+        private int[] digitCounts = new int[gridDimensions];
+        private int numFilled;
+        private int numDuplicates;
+
         public Cage(int targetValue) {
             this.targetValue = targetValue;
         }
@@ -311,94 +384,105 @@ public class KillerSudokuGrid extends SudokuGrid {
         }
 
         public void findCombinations(ArrayList<Integer> digits) {
-            possibleDigits.clear();
+            /*
+             * Work out which digits can still go in the empty cells, as a bitmask of
+             * digit positions looked up in the combination table
+             */
+            possibleMask = combinations.getPossibleDigits(targetValue - currentValue, cells.size() - numFilled,
+                    digitMask);
+        }
 
-            findCombinationsRecursive(digits, new ArrayList<Integer>(), currentValue, 0);
+        public void increaseSum(int value) {
+            this.currentValue += value;
         }
 
-        public void findCombinationsRecursive(ArrayList<Integer> digits, ArrayList<Integer> partialSol, int sum,
-                int startIndex) {
-            if (sum == this.targetValue && partialSol.size() == (this.cells.size() - digitsInCage.size())) {
-                for (int i : partialSol) {
-                    possibleDigits.add(i);
-                }
+        private void addDigit(int position) {
+            if (digitCounts[position]++ == 0) {
+                digitMask |= 1L << position;
+            } else {
+                numDuplicates++;
             }
 
-            if (!(sum >= targetValue)) {
-                for (int i = startIndex; i < digits.size(); i++) {
-                    int newDigit = digits.get(i);
-
-                    if (digitsInCage.contains(newDigit)) {
-                        continue;
-                    }
-
-                    partialSol.add(newDigit);
-
-                    findCombinationsRecursive(digits, partialSol, sum + digits.get(i), i + 1);
+            numFilled++;
+        }
 
-                    partialSol.remove(partialSol.size() - 1);
-                }
+        private void removeDigit(int position) {
+            if (--digitCounts[position] == 0) {
+                digitMask &= ~(1L << position);
+            } else {
+                numDuplicates--;
             }
-        }
 
-        public void increaseSum(int value) {
-            this.currentValue += value;
+            numFilled--;
         }
 
         public boolean checkDuplicates(int digit) {
-            return this.digitsInCage.contains(digit);
+            int position = getDigitPosition(digit);
+
+            return position != -1 && (digitMask & (1L << position)) != 0;
         }
 
         public boolean isValid() {
-            HashSet<Integer> digits = new HashSet<Integer>();
-
-            if (this.currentValue > this.targetValue
-                    || (digitsInCage.size() == cells.size() && this.currentValue != this.targetValue)) {
+            if (this.currentValue > this.targetValue || numDuplicates > 0) {
                 return false;
             }
 
-            for (Cell cell : cells) {
-                if (cell.getValue() == 0) {
-                    continue;
-                }
+            return numFilled < cells.size() || this.currentValue == this.targetValue;
+        }
 
-                if (digits.contains(cell.getValue())) {
-                    return false;
-                } else {
-                    digits.add(cell.getValue());
+        public boolean isComplete() {
+            return numFilled == cells.size() && numDuplicates == 0 && this.currentValue == this.targetValue;
+        }
+
+        public HashSet<Integer> getDigitsInCage() {
+            // Built from the mask, getDigitMask() avoids the allocation
+            HashSet<Integer> digitsInCage = new HashSet<Integer>();
+
+            for (int position = 0; position < digits.size(); position++) {
+                if ((digitMask & (1L << position)) != 0) {
+                    digitsInCage.add(digits.get(position));
                 }
             }
 
-            return true;
+            return digitsInCage;
         }
 
-        public boolean isComplete() {
-            int sum = 0;
-            HashSet<Integer> digits = new HashSet<Integer>();
+        public long getDigitMask() {
+            return this.digitMask;
+        }
 
-            for (Cell cell : cells) {
-                if (digits.contains(cell.getValue())) {
-                    return false;
-                } else {
-                    digits.add(cell.getValue());
-                }
+        public int getCurrentValue() {
+            return this.currentValue;
+        }
 
-                sum += cell.getValue();
-            }
+        public int getTargetValue() {
+            return this.targetValue;
+        }
 
-            if (sum != this.targetValue) {
-                return false;
+        public int getNumFilled() {
+            return this.numFilled;
+        }
+
+        public HashSet<Integer> getPossibleDigits() {
+            // Built from the mask, getPossibleMask() avoids the allocation
+            HashSet<Integer> possibleDigits = new HashSet<Integer>();
+
+            for (int position = 0; position < digits.size(); position++) {
+                if ((possibleMask & (1L << position)) != 0) {
+                    possibleDigits.add(digits.get(position));
+                }
             }
 
-            return true;
+            return possibleDigits;
         }
 
-        public HashSet<Integer> getDigitsInCage() {
-            return this.digitsInCage;
+        public long getPossibleMask() {
+            return this.possibleMask;
         }
 
-        public HashSet<Integer> getPossibleDigits() {
-            return this.possibleDigits;
+        public void setPossibleMask(long possibleMask) {
+            // Lets a solver restore a mask it saved instead of recomputing it
+            this.possibleMask = possibleMask;
         }
 
         public ArrayList<Cell> getCells() {
@@ -422,11 +506,11 @@ public class KillerSudokuGrid extends SudokuGrid {
 
         public void setValue(int newVal) {
             if (this.value != 0) {
-                this.cage.getDigitsInCage().remove(this.value);
+                this.cage.removeDigit(getDigitPosition(this.value));
             }
 
             if (newVal != 0) {
-                this.cage.getDigitsInCage().add(newVal);
+                this.cage.addDigit(getDigitPosition(newVal));
             }
 
             this.cage.increaseSum(newVal - this.value);
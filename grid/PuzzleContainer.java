@@ -0,0 +1,251 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * Implemented by Dylan Pleiter (s3252987)
+ */
+package grid;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+/**
+ * Read only view of a binary puzzle container, memory mapped so grids are
+ * built straight from the file's bytes with no parsing.
+ *
+ * A container holds puzzles of one game type, grid size and set of digits,
+ * which are stored once in its header:
+ *
+ *   magic "SDKB", version, game type (0 Sudoku, 1 Killer), bits per cell,
+ *   a padding byte, grid size (int), each digit (int), number of puzzles
+ *   (int) and the offset of the index (long).
+ *
+ * The puzzles follow. A Sudoku puzzle stores each cell in row order as its
+ * digit position + 1, or 0 if empty, packed two to a byte when the digits
+ * fit in 4 bits and one to a byte otherwise. A Killer puzzle is a cage
+ * table: the number of cages (short), then for each cage its sum (int), its
+ * number of cells (short) and each cell as row * size + col (short). The
+ * index at the end holds the offset of every puzzle as a long, for random
+ * access.
+ *
+ * The file is mapped in segments of 1 GiB, as one mapping can't be larger
+ * than 2 GiB. The writer pads the file so no puzzle or index entry crosses
+ * a segment boundary.
+ */
+public class PuzzleContainer implements Closeable {
+    /**
+     * File name extension of containers.
+     */
+    public static final String EXTENSION = ".sdkb";
+
+    static final byte[] MAGIC = { 'S', 'D', 'K', 'B' };
+    static final int VERSION = 1;
+
+    static final int SUDOKU = 0;
+    static final int KILLER = 1;
+
+    static final int SEGMENT_BITS = 30;
+    static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+
+    private MappedByteBuffer[] segments;
+
+    private boolean killer;
+    private int cellBits;
+    private int gridDimensions;
+    private ArrayList<Integer> digits = new ArrayList<Integer>();
+    private int numPuzzles;
+    private long indexOffset;
+
+    public PuzzleContainer(String filename) throws FileNotFoundException, IOException {
+        RandomAccessFile file = new RandomAccessFile(filename, "r");
+
+        try {
+            // Mappings stay valid once the file is closed
+            FileChannel channel = file.getChannel();
+            long fileSize = channel.size();
+
+            segments = new MappedByteBuffer[(int) ((fileSize + SEGMENT_SIZE - 1) >>> SEGMENT_BITS)];
+
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i << SEGMENT_BITS;
+
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(SEGMENT_SIZE, fileSize - start));
+            }
+        } finally {
+            file.close();
+        }
+
+        readHeader(filename);
+    } // end of PuzzleContainer()
+
+    private void readHeader(String filename) throws IOException {
+        ByteBuffer header = segments.length > 0 ? segments[0] : ByteBuffer.allocate(0);
+
+        if (header.limit() < 12 || !hasMagic(header)) {
+            throw new IOException(filename + " is not a puzzle container");
+        }
+
+        if (header.get(4) != VERSION) {
+            throw new IOException("Unsupported container version " + header.get(4));
+        }
+
+        killer = header.get(5) == KILLER;
+        cellBits = header.get(6);
+        gridDimensions = header.getInt(8);
+
+        if (gridDimensions <= 0 || header.limit() < headerSize(gridDimensions)) {
+            throw new IOException("Container header is truncated");
+        }
+
+        for (int i = 0; i < gridDimensions; i++) {
+            digits.add(header.getInt(12 + 4 * i));
+        }
+
+        numPuzzles = header.getInt(12 + 4 * gridDimensions);
+        indexOffset = header.getLong(16 + 4 * gridDimensions);
+    }
+
+    /**
+     * @return True if the file starts with the container magic number.
+     */
+    public static boolean isContainer(File file) throws IOException {
+        if (!file.isFile() || file.length() < MAGIC.length) {
+            return false;
+        }
+
+        InputStream stream = new FileInputStream(file);
+
+        try {
+            byte[] magic = new byte[MAGIC.length];
+
+            return stream.read(magic) == MAGIC.length && hasMagic(ByteBuffer.wrap(magic));
+        } finally {
+            stream.close();
+        }
+    } // end of isContainer()
+
+    /**
+     * Replace the puzzle in a grid with one from the container.
+     *
+     * @param grid Grid to load into, of the container's game type.
+     * @param index Index of the puzzle, from 0.
+     *
+     * @throws IOException If the grid is of the wrong type or the puzzle is
+     *                     invalid.
+     */
+    public void initGrid(SudokuGrid grid, int index) throws IOException {
+        if (index < 0 || index >= numPuzzles) {
+            throw new IndexOutOfBoundsException("Puzzle " + index + " of " + numPuzzles);
+        }
+
+        long offset = readLong(indexOffset + 8L * index);
+        ByteBuffer segment = segments[(int) (offset >>> SEGMENT_BITS)];
+        int position = (int) (offset & (SEGMENT_SIZE - 1));
+
+        if (killer && grid instanceof KillerSudokuGrid) {
+            loadKiller((KillerSudokuGrid) grid, segment, position);
+        } else if (!killer && grid instanceof StdSudokuGrid) {
+            loadSudoku((StdSudokuGrid) grid, segment, position);
+        } else {
+            throw new IOException("Container holds " + (killer ? "Killer" : "standard") + " Sudoku puzzles");
+        }
+    } // end of initGrid()
+
+    private void loadSudoku(StdSudokuGrid grid, ByteBuffer segment, int position) throws IOException {
+        grid.startGrid(digits);
+
+        int numCells = gridDimensions * gridDimensions;
+
+        for (int cell = 0; cell < numCells; cell++) {
+            int entry;
+
+            if (cellBits == 4) {
+                entry = (segment.get(position + cell / 2) >>> (4 * (cell % 2))) & 0xF;
+            } else {
+                entry = segment.get(position + cell) & 0xFF;
+            }
+
+            if (entry > gridDimensions) {
+                throw new IOException("Cell value does not exist in defined digits");
+            }
+
+            if (entry != 0) {
+                grid.setCell(cell / gridDimensions, cell % gridDimensions, entry - 1);
+            }
+        }
+
+        grid.finishGrid();
+    }
+
+    private void loadKiller(KillerSudokuGrid grid, ByteBuffer segment, int position) throws IOException {
+        grid.startGrid(digits);
+
+        int numCages = segment.getShort(position) & 0xFFFF;
+        position += 2;
+
+        // Local rather than a field, so several threads can load from one container
+        int[] cells = new int[gridDimensions * gridDimensions];
+
+        for (int cage = 0; cage < numCages; cage++) {
+            int targetValue = segment.getInt(position);
+            int numCells = segment.getShort(position + 4) & 0xFFFF;
+            position += 6;
+
+            if (numCells > cells.length) {
+                throw new IOException("Cage has more cells than the grid");
+            }
+
+            for (int i = 0; i < numCells; i++) {
+                cells[i] = segment.getShort(position) & 0xFFFF;
+                position += 2;
+            }
+
+            grid.addCage(targetValue, cells, numCells);
+        }
+
+        grid.finishGrid();
+    }
+
+    private long readLong(long offset) {
+        // Index entries are 8 byte aligned, so never cross a segment
+        return segments[(int) (offset >>> SEGMENT_BITS)].getLong((int) (offset & (SEGMENT_SIZE - 1)));
+    }
+
+    private static boolean hasMagic(ByteBuffer buffer) {
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get(i) != MAGIC[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    static int headerSize(int gridDimensions) {
+        return 24 + 4 * gridDimensions;
+    }
+
+    public boolean isKiller() {
+        return this.killer;
+    } // end of isKiller()
+
+    public int getSize() {
+        return this.gridDimensions;
+    } // end of getSize()
+
+    public List<Integer> getDigits() {
+        return Collections.unmodifiableList(this.digits);
+    } // end of getDigits()
+
+    public int getNumPuzzles() {
+        return this.numPuzzles;
+    } // end of getNumPuzzles()
+
+    @Override
+    public void close() {
+        // Mapped buffers are unmapped once they are no longer referenced
+        segments = new MappedByteBuffer[0];
+        numPuzzles = 0;
+    } // end of close()
+} // end of class PuzzleContainer
@@ -0,0 +1,204 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * Implemented by Dylan Pleiter (s3252987)
+ */
+package grid;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Writes grids to a binary puzzle container, in the format described in
+ * PuzzleContainer. The first grid added sets the game type, grid size and
+ * digits, and every later grid must match them. The index and puzzle count
+ * are written when the writer is closed. Killer puzzles are stored as their
+ * cages only, as the input format has no filled cells for them.
+ */
+public class PuzzleContainerWriter implements Closeable {
+    private String filename;
+    private DataOutputStream out;
+    private long offset;
+
+    private boolean started;
+    private boolean killer;
+    private int cellBits;
+    private ArrayList<Integer> digits = new ArrayList<Integer>();
+
+    // Offset of each puzzle written, and of the index after them
+    private long[] puzzleOffsets = new long[1024];
+    private int numPuzzles;
+    private long indexOffset;
+
+    // Encoded bytes of the puzzle being added
+    private ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+    private DataOutputStream record = new DataOutputStream(recordBytes);
+
+    public PuzzleContainerWriter(String filename) throws FileNotFoundException {
+        this.filename = filename;
+
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1 << 16));
+    } // end of PuzzleContainerWriter()
+
+    /**
+     * Append the puzzle currently in a grid.
+     *
+     * @throws IOException If the grid doesn't match the container or can't be
+     *                     encoded, or writing fails.
+     */
+    public void add(SudokuGrid grid) throws IOException {
+        if (!started) {
+            writeHeader(grid);
+        } else if (!matches(grid)) {
+            throw new IOException("Puzzles in a container must share game type, size and digits");
+        }
+
+        recordBytes.reset();
+
+        if (killer) {
+            encodeKiller((KillerSudokuGrid) grid);
+        } else {
+            encodeSudoku(grid);
+        }
+
+        // Pad to the next segment rather than let a puzzle cross into it
+        long segmentEnd = ((offset >>> PuzzleContainer.SEGMENT_BITS) + 1) << PuzzleContainer.SEGMENT_BITS;
+
+        if (offset + recordBytes.size() > segmentEnd) {
+            pad(segmentEnd - offset);
+        }
+
+        if (numPuzzles == puzzleOffsets.length) {
+            puzzleOffsets = Arrays.copyOf(puzzleOffsets, 2 * numPuzzles);
+        }
+
+        puzzleOffsets[numPuzzles++] = offset;
+
+        recordBytes.writeTo(out);
+        offset += recordBytes.size();
+    } // end of add()
+
+    /**
+     * @return True if the grid can be added, as no puzzle has been added yet or
+     *         it has the same game type, size and digits as those that have.
+     */
+    public boolean matches(SudokuGrid grid) {
+        return !started || (killer == (grid instanceof KillerSudokuGrid) && digits.equals(grid.getDigits()));
+    } // end of matches()
+
+    private void writeHeader(SudokuGrid grid) throws IOException {
+        if (!(grid instanceof KillerSudokuGrid) && !(grid instanceof StdSudokuGrid)) {
+            throw new IOException("Unknown grid type " + grid.getClass().getName());
+        }
+
+        killer = grid instanceof KillerSudokuGrid;
+        digits.addAll(grid.getDigits());
+
+        int gridDimensions = grid.getSize();
+
+        if (gridDimensions > (killer ? 256 : 255)) {
+            throw new IOException("Containers support grids of at most " + (killer ? 256 : 255) + " digits");
+        }
+
+        cellBits = gridDimensions < 16 ? 4 : 8;
+
+        out.write(PuzzleContainer.MAGIC);
+        out.writeByte(PuzzleContainer.VERSION);
+        out.writeByte(killer ? PuzzleContainer.KILLER : PuzzleContainer.SUDOKU);
+        out.writeByte(cellBits);
+        out.writeByte(0);
+        out.writeInt(gridDimensions);
+
+        for (int digit : digits) {
+            out.writeInt(digit);
+        }
+
+        // Puzzle count and index offset, filled in by close()
+        out.writeInt(0);
+        out.writeLong(0);
+
+        offset = PuzzleContainer.headerSize(gridDimensions);
+        started = true;
+    }
+
+    private void encodeSudoku(SudokuGrid grid) throws IOException {
+        int gridDimensions = grid.getSize();
+        int packed = 0;
+
+        for (int cell = 0; cell < gridDimensions * gridDimensions; cell++) {
+            int cellValue = grid.getCellValue(cell / gridDimensions, cell % gridDimensions);
+            int entry = cellValue == 0 ? 0 : grid.getDigitPosition(cellValue) + 1;
+
+            if (cellBits == 8) {
+                record.writeByte(entry);
+            } else if (cell % 2 == 0) {
+                packed = entry;
+            } else {
+                record.writeByte(packed | (entry << 4));
+            }
+        }
+
+        if (cellBits == 4 && gridDimensions * gridDimensions % 2 == 1) {
+            record.writeByte(packed);
+        }
+    }
+
+    private void encodeKiller(KillerSudokuGrid grid) throws IOException {
+        ArrayList<KillerSudokuGrid.Cage> cages = grid.getCages();
+
+        if (cages.size() > 0xFFFF) {
+            throw new IOException("Too many cages to encode");
+        }
+
+        record.writeShort(cages.size());
+
+        for (KillerSudokuGrid.Cage cage : cages) {
+            record.writeInt(cage.getTargetValue());
+            record.writeShort(cage.getCells().size());
+
+            for (KillerSudokuGrid.Cell cell : cage.getCells()) {
+                record.writeShort(cell.getRow() * grid.getSize() + cell.getCol());
+            }
+        }
+    }
+
+    private void pad(long numBytes) throws IOException {
+        for (long i = 0; i < numBytes; i++) {
+            out.writeByte(0);
+        }
+
+        offset += numBytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        /*
+         * Write the index, 8 byte aligned so no entry crosses a segment, then go
+         * back and fill in the header
+         */
+        try {
+            if (!started) {
+                throw new IOException("No puzzles were added to " + filename);
+            }
+
+            pad((8 - offset % 8) % 8);
+
+            indexOffset = offset;
+
+            for (int i = 0; i < numPuzzles; i++) {
+                out.writeLong(puzzleOffsets[i]);
+            }
+        } finally {
+            out.close();
+        }
+
+        RandomAccessFile file = new RandomAccessFile(filename, "rw");
+
+        try {
+            file.seek(PuzzleContainer.headerSize(digits.size()) - 12);
+            file.writeInt(numPuzzles);
+            file.writeLong(indexOffset);
+        } finally {
+            file.close();
+        }
+    } // end of close()
+} // end of class PuzzleContainerWriter
@@ -0,0 +1,327 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * Implemented by Dylan Pleiter (s3252987)
+ */
+package grid;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Reads puzzle files a byte at a time through a reusable buffer, decoding
+ * integers in place rather than splitting lines into strings. Spaces, tabs,
+ * commas and carriage returns all separate integers, and a line holding
+ * nothing but those ends a puzzle.
+ *
+ * A reader can be built over a stream, over bytes already in memory, or
+ * over a character reader. A character reader is only read one character at
+ * a time, so it is left positioned just after the puzzle that was read.
+ */
+public class PuzzleReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private InputStream stream;
+    private Reader reader;
+
+    private byte[] buffer;
+    private int position;
+    private int limit;
+
+    // Line of the next byte, counted from 1, for error messages
+    private int lineNumber;
+    // True between the start of a puzzle and the blank line or end after it
+    private boolean inPuzzle;
+    // True if nothing on the current line has been consumed yet
+    private boolean atLineStart;
+
+    // Bytes of the puzzle being copied by readPuzzleBytes()
+    private byte[] puzzleBytes;
+
+    public PuzzleReader(InputStream stream) {
+        this.stream = stream;
+
+        buffer = new byte[BUFFER_SIZE];
+        lineNumber = 1;
+        atLineStart = true;
+    } // end of PuzzleReader()
+
+    public PuzzleReader(Reader reader) {
+        this.reader = reader;
+
+        buffer = new byte[1];
+        lineNumber = 1;
+        atLineStart = true;
+    } // end of PuzzleReader()
+
+    public PuzzleReader(byte[] data, int length) {
+        reset(data, length);
+    } // end of PuzzleReader()
+
+    /**
+     * Start reading the first length bytes of data, so one reader can be used
+     * for many puzzles held in memory.
+     */
+    public void reset(byte[] data, int length) {
+        stream = null;
+        reader = null;
+
+        buffer = data;
+        position = 0;
+        limit = length;
+        lineNumber = 1;
+        inPuzzle = false;
+        atLineStart = true;
+    } // end of reset()
+
+    /**
+     * Skip any blank lines before the next puzzle.
+     *
+     * @return False if the end of the input was reached first.
+     */
+    public boolean nextPuzzle() throws IOException {
+        while (true) {
+            skipSeparators();
+
+            int next = peek();
+
+            if (next == -1) {
+                return false;
+            } else if (next != '\n') {
+                inPuzzle = true;
+                return true;
+            }
+
+            advance();
+        }
+    } // end of nextPuzzle()
+
+    /**
+     * Check for the end of the current puzzle at the start of a line. A blank
+     * line ending the puzzle is consumed, otherwise the line is left to read.
+     *
+     * @return True if the line is blank or the input has ended.
+     */
+    public boolean endOfPuzzle() throws IOException {
+        skipSeparators();
+
+        int next = peek();
+
+        if (next == '\n') {
+            advance();
+        }
+
+        inPuzzle = next != '\n' && next != -1;
+
+        return !inPuzzle;
+    } // end of endOfPuzzle()
+
+    /**
+     * @return True if there is another integer before the end of the line.
+     */
+    public boolean hasMoreOnLine() throws IOException {
+        skipSeparators();
+
+        int next = peek();
+
+        return next != '\n' && next != -1;
+    } // end of hasMoreOnLine()
+
+    /**
+     * Decode the next integer on the current line.
+     *
+     * @throws IOException If the line has ended or the next token is not an
+     *                     integer.
+     */
+    public int readInt() throws IOException {
+        skipSeparators();
+
+        boolean negative = peek() == '-';
+
+        if (negative) {
+            advance();
+        }
+
+        int next = peek();
+
+        if (next < '0' || next > '9') {
+            throw new IOException("Expected an integer on line " + lineNumber);
+        }
+
+        long value = 0;
+
+        while (next >= '0' && next <= '9') {
+            value = value * 10 + (next - '0');
+
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new IOException("Integer too large on line " + lineNumber);
+            }
+
+            advance();
+            next = peek();
+        }
+
+        if (next != -1 && next != '\n' && !isSeparator(next)) {
+            throw new IOException("Expected an integer on line " + lineNumber);
+        }
+
+        value = negative ? -value : value;
+
+        if (value > Integer.MAX_VALUE) {
+            throw new IOException("Integer too large on line " + lineNumber);
+        }
+
+        return (int) value;
+    } // end of readInt()
+
+    /**
+     * Move past the end of the current line.
+     *
+     * @return False if the line still had integers on it, which are left
+     *         unread.
+     */
+    public boolean endLine() throws IOException {
+        if (hasMoreOnLine()) {
+            return false;
+        }
+
+        if (peek() == '\n') {
+            advance();
+        }
+
+        return true;
+    } // end of endLine()
+
+    /**
+     * Skip the rest of the current puzzle, such as after an error part way
+     * through it. Does nothing if the puzzle was already read to its end.
+     */
+    public void skipPuzzle() throws IOException {
+        if (!inPuzzle) {
+            return;
+        }
+
+        if (!atLineStart) {
+            skipLine();
+        }
+
+        while (!endOfPuzzle()) {
+            skipLine();
+        }
+    } // end of skipPuzzle()
+
+    /**
+     * Copy out the next puzzle, without the blank lines around it, so it can
+     * be parsed later or on another thread.
+     *
+     * @return Bytes of the puzzle, or null at the end of the input.
+     */
+    public byte[] readPuzzleBytes() throws IOException {
+        if (!nextPuzzle()) {
+            return null;
+        }
+
+        if (puzzleBytes == null) {
+            puzzleBytes = new byte[256];
+        }
+
+        int length = 0;
+        int lineStart = 0;
+        boolean blank = false;
+
+        while (!blank) {
+            int next = peek();
+
+            if (next == -1) {
+                break;
+            }
+
+            advance();
+
+            if (length == puzzleBytes.length) {
+                puzzleBytes = Arrays.copyOf(puzzleBytes, 2 * length);
+            }
+
+            puzzleBytes[length++] = (byte) next;
+
+            if (next == '\n') {
+                // A line of only separators ends the puzzle and isn't copied
+                blank = true;
+
+                for (int i = lineStart; i < length - 1; i++) {
+                    blank &= isSeparator(puzzleBytes[i]);
+                }
+
+                if (blank) {
+                    length = lineStart;
+                } else {
+                    lineStart = length;
+                }
+            }
+        }
+
+        inPuzzle = false;
+
+        return Arrays.copyOf(puzzleBytes, length);
+    } // end of readPuzzleBytes()
+
+    public int getLineNumber() {
+        return lineNumber;
+    } // end of getLineNumber()
+
+    private void skipLine() throws IOException {
+        int next = peek();
+
+        while (next != '\n' && next != -1) {
+            advance();
+            next = peek();
+        }
+
+        if (next == '\n') {
+            advance();
+        }
+    }
+
+    private void advance() {
+        // Consume the byte just peeked
+        atLineStart = buffer[position++] == '\n';
+
+        if (atLineStart) {
+            lineNumber++;
+        }
+    }
+
+    private void skipSeparators() throws IOException {
+        while (isSeparator(peek())) {
+            advance();
+        }
+    }
+
+    private boolean isSeparator(int next) {
+        return next == ' ' || next == ',' || next == '\t' || next == '\r';
+    }
+
+    private int peek() throws IOException {
+        // Next byte without consuming it, refilling the buffer as needed, or -1 at the end
+        if (position == limit) {
+            position = 0;
+            limit = 0;
+
+            if (stream != null) {
+                limit = Math.max(stream.read(buffer, 0, buffer.length), 0);
+            } else if (reader != null) {
+                int next = reader.read();
+
+                if (next != -1) {
+                    buffer[0] = (byte) next;
+                    limit = 1;
+                }
+            }
+
+            if (limit == 0) {
+                return -1;
+            }
+        }
+
+        return buffer[position] & 0xFF;
+    }
+} // end of class PuzzleReader
@@ -16,10 +16,19 @@ import java.util.*;
  * your implementation).
  */
 public class StdSudokuGrid extends SudokuGrid {
-    public int[][] grid;
+    // Board stored row by row as digit position + 1, with 0 for an empty cell
+    private int[] cells;
+    // Digit value for each cell entry, cellValues[0] is the empty value 0
+    private int[] cellValues;
+    // Lookup from digit value to digit position
+    private DigitTable digitTable;
+
     private ArrayList<Integer> digits = new ArrayList<Integer>();
     private int gridDimensions;
 
+    // Checks rows, columns and boxes for repeats, incrementally if switched on
+    private HouseValidator validator = new HouseValidator();
+
     public StdSudokuGrid() {
         super();
     } // end of StdSudokuGrid()
@@ -28,188 +37,160 @@ public class StdSudokuGrid extends SudokuGrid {
 
     @Override
     public void initGrid(String filename) throws FileNotFoundException, IOException {
-        BufferedReader file = new BufferedReader(new FileReader(filename));
-        String inputLine;
+        InputStream file = new FileInputStream(filename);
 
-        // dimesnion of grid
-        inputLine = file.readLine();
-        gridDimensions = Integer.parseInt(inputLine);
+        try {
+            PuzzleReader reader = new PuzzleReader(file);
 
-        grid = new int[gridDimensions][gridDimensions];
+            initGrid(reader);
 
-        // Unique digits
-        inputLine = file.readLine();
+            // A blank line ends a puzzle, so anything after one would be silently dropped
+            if (reader.nextPuzzle()) {
+                throw new IOException("Unexpected input after a blank line, on line " + reader.getLineNumber());
+            }
+        } finally {
+            file.close();
+        }
+    } // end of initGrid()
 
-        String[] digitStrings = inputLine.split(" ");
+    @Override
+    public void initGrid(BufferedReader file) throws IOException {
+        initGrid(new PuzzleReader(file));
+    } // end of initGrid()
 
-        if (digitStrings.length != gridDimensions) {
-            file.close();
-            throw new IOException("Number of digits must equal grid dimensions");
+    @Override
+    public void initGrid(PuzzleReader reader) throws IOException {
+        // Reset any state from a previously loaded puzzle
+        digits.clear();
+        validator.reset();
+
+        // dimesnion of grid
+        gridDimensions = reader.readInt();
+
+        if (gridDimensions <= 0 || !reader.endLine()) {
+            throw new IOException("First line must be the grid dimensions");
         }
 
-        for (String digit : digitStrings) {
-            int newDigit = Integer.parseInt(digit);
+        cells = new int[gridDimensions * gridDimensions];
 
-            if (digits.contains(newDigit)) {
-                file.close();
-                throw new IOException("Duplicate digits detected");
+        // Unique digits, duplicates are found when the lookup table is built
+        while (reader.hasMoreOnLine()) {
+            if (digits.size() == gridDimensions) {
+                throw new IOException("Number of digits must equal grid dimensions");
             }
 
-            digits.add(newDigit);
+            digits.add(reader.readInt());
         }
 
-        // Begin reading cell information
-        inputLine = file.readLine();
+        reader.endLine();
+
+        if (digits.size() != gridDimensions) {
+            throw new IOException("Number of digits must equal grid dimensions");
+        }
 
-        while (inputLine != null) {
-            String[] cellDetail = inputLine.split("[, ]");
+        buildDigitTables();
 
-            if (cellDetail.length != 3) {
-                file.close();
+        // Begin reading cell information
+        while (!reader.endOfPuzzle()) {
+            int gridRow = reader.readInt();
+            int gridCol = reader.readInt();
+            int cellValue = reader.readInt();
+
+            if (!reader.endLine()) {
                 throw new IOException("Error reading cell data. Make sure lines have 3 arguments only");
             }
 
-            int gridRow = Integer.parseInt(cellDetail[0]);
-            int gridCol = Integer.parseInt(cellDetail[1]);
-            int cellValue = Integer.parseInt(cellDetail[2]);
-
-            if (gridRow >= gridDimensions || gridCol >= gridDimensions) {
-                file.close();
+            if (gridRow < 0 || gridCol < 0 || gridRow >= gridDimensions || gridCol >= gridDimensions) {
                 throw new IOException("Make sure grid cells are within bounds");
             }
 
-            if (!digits.contains(cellValue)) {
-                file.close();
+            int digitPosition = getDigitPosition(cellValue);
+
+            if (digitPosition == -1) {
                 throw new IOException("Cell value does not exist in defined digits");
             }
 
-            grid[gridRow][gridCol] = cellValue;
+            setCell(gridRow, gridCol, digitPosition);
+        }
 
-            inputLine = file.readLine();
+        if (!validate()) {
+            throw new IOException("Invalid starting grid");
         }
+    } // end of initBoard()
 
-        file.close();
+    void startGrid(List<Integer> newDigits) throws IOException {
+        /*
+         * Start an empty grid for the given digits, for a PuzzleContainer to fill
+         * in. The digit tables are only rebuilt if the digits change
+         */
+        validator.reset();
 
+        if (!digits.equals(newDigits)) {
+            digits.clear();
+            digits.addAll(newDigits);
+
+            gridDimensions = digits.size();
+            buildDigitTables();
+        }
+
+        if (cells == null || cells.length != gridDimensions * gridDimensions) {
+            cells = new int[gridDimensions * gridDimensions];
+        } else {
+            Arrays.fill(cells, 0);
+        }
+    }
+
+    void finishGrid() throws IOException {
         if (!validate()) {
             throw new IOException("Invalid starting grid");
         }
-    } // end of initBoard()
+    }
 
     @Override
     public void outputGrid(String filename) throws FileNotFoundException, IOException {
-        BufferedWriter outfile = new BufferedWriter(new FileWriter(filename));
-
-        outfile.write(toString());
+        GridWriter outfile = new GridWriter(new FileOutputStream(filename));
 
-        outfile.close();
+        try {
+            outfile.write(this);
+        } finally {
+            outfile.close();
+        }
     } // end of outputBoard()
 
     @Override
     public String toString() {
-        String outString = "";
-        int cellValue;
-
-        for (int row = 0; row < gridDimensions; row++) {
-            for (int col = 0; col < gridDimensions; col++) {
-                cellValue = grid[row][col];
-
-                if (cellValue == 0) {
-                    outString += " ";
-                } else {
-                    outString += Integer.toString(cellValue);
-                }
-
-                if (col == gridDimensions - 1) {
-                    outString += "\n";
-                } else {
-                    outString += ",";
-                }
-            }
-        }
-
-        return outString;
+        return GridWriter.toString(this);
     } // end of toString()
 
     public boolean validate() {
         // to run after initialisation to ensure a valid starting grid
-        int boxSize = (int) Math.sqrt(gridDimensions);
-        int cellValue;
-
-        HashSet<Integer> checker = new HashSet<Integer>();
-
-        // Check rows
-        for (int row = 0; row < gridDimensions; row++) {
-            for (int col = 0; col < gridDimensions; col++) {
-                cellValue = grid[row][col];
-
-                if (cellValue == 0)
-                    continue;
-
-                if (!checker.contains(cellValue)) {
-                    checker.add(cellValue);
-                } else {
-                    return false;
-                }
-            }
-
-            checker.clear();
-        }
-
-        // Check columns
-        for (int col = 0; col < gridDimensions; col++) {
-            for (int row = 0; row < gridDimensions; row++) {
-                cellValue = grid[row][col];
-
-                if (cellValue == 0)
-                    continue;
-
-                if (!checker.contains(cellValue)) {
-                    checker.add(cellValue);
-                } else {
-                    return false;
-                }
-            }
-
-            checker.clear();
-        }
-
-        // Check boxes
-        for (int boxStartRow = 0; boxStartRow < gridDimensions; boxStartRow += boxSize) {
-            for (int boxStartCol = 0; boxStartCol < gridDimensions; boxStartCol += boxSize) {
-                for (int c = 0; c < boxSize; c++) {
-                    for (int d = 0; d < boxSize; d++) {
-                        cellValue = grid[boxStartRow + c][boxStartCol + d];
-
-                        if (cellValue == 0)
-                            continue;
-
-                        if (!checker.contains(cellValue)) {
-                            checker.add(cellValue);
-                        } else {
-                            return false;
-                        }
-                    }
-                }
-
-                checker.clear();
-            }
-        }
-
-        return true;
+        return validator.validate(this);
     } // end of validate()
 
+    @Override
+    public void setIncrementalValidation(boolean enabled) {
+        validator.setIncremental(enabled);
+    } // end of setIncrementalValidation()
+
     public boolean checkComplete() {
-        for (int[] row : grid) {
-            for (int cell : row) {
-                if (cell == 0)
-                    return false;
-            }
+        for (int cell : cells) {
+            if (cell == 0)
+                return false;
         }
 
         return true;
     }
 
     public int[][] getGrid() {
+        // Copy of the board in row/column form, as digit values
+        int[][] grid = new int[gridDimensions][gridDimensions];
+
+        for (int row = 0; row < gridDimensions; row++) {
+            for (int col = 0; col < gridDimensions; col++) {
+                grid[row][col] = getCellValue(row, col);
+            }
+        }
+
         return grid;
     }
 
@@ -225,26 +206,34 @@ public class StdSudokuGrid extends SudokuGrid {
 
     @Override
     public int getCellValue(int row, int col) {
-        return grid[row][col];
+        return cellValues[cells[row * gridDimensions + col]];
     }
 
     @Override
     public void setCell(int row, int col, int digitNum) {
-        if (digitNum == -1) {
-            grid[row][col] = 0;
-        } else {
-            grid[row][col] = digits.get(digitNum);
+        // digitNum of -1 clears the cell, which maps onto the empty entry 0
+        int index = row * gridDimensions + col;
+
+        if (validator.isCurrent()) {
+            validator.cellChanged(row, col, cells[index] - 1, digitNum);
         }
+
+        cells[index] = digitNum + 1;
     }
 
     @Override
     public int getDigitPosition(int digit) {
+        return digitTable.position(digit);
+    }
+
+    private void buildDigitTables() throws IOException {
+        // Build the cell value table and the value to position lookup from the digit list
+        cellValues = new int[gridDimensions + 1];
+
         for (int position = 0; position < gridDimensions; position++) {
-            if (digits.get(position) == digit) {
-                return position;
-            }
+            cellValues[position + 1] = digits.get(position);
         }
 
-        return -1;
+        digitTable = new DigitTable(digits);
     }
 } // end of class StdSudokuGrid
@@ -27,6 +27,30 @@ public abstract class SudokuGrid {
      */
     public abstract void initGrid(String filename) throws FileNotFoundException, IOException;
 
+    /**
+     * Read a single puzzle from an open reader, in the same format as the input
+     * files. Reading stops at the first blank line or at the end of the stream, so
+     * several puzzles separated by blank lines can be read one after another. Any
+     * previously loaded puzzle is replaced. The reader is not closed.
+     *
+     * @param file Reader positioned at the first line of a puzzle.
+     *
+     * @throws IOException If the puzzle is malformed or the reader fails.
+     */
+    public abstract void initGrid(BufferedReader file) throws IOException;
+
+    /**
+     * Read a single puzzle with a byte level puzzle reader, in the same format and
+     * with the same checks as the other initGrid() methods. Reading stops after
+     * the first blank line or at the end of the input, leaving the reader at the
+     * next puzzle.
+     *
+     * @param reader Reader positioned at the first line of a puzzle.
+     *
+     * @throws IOException If the puzzle is malformed or the reader fails.
+     */
+    public abstract void initGrid(PuzzleReader reader) throws IOException;
+
     /**
      * Write out the current values in the grid to file. This must be implemented in
      * order for your assignment to be evaluated by our testing.
@@ -56,6 +80,18 @@ public abstract class SudokuGrid {
      */
     public abstract boolean validate();
 
+    /**
+     * Switch incremental validation on or off. When on, the grid keeps counts of
+     * the digits in each house up to date as cells are set, so validate() no
+     * longer scans the grid. This costs a little on every setCell(), which adds
+     * up in solvers that set cells often, so it is off by default and only
+     * worth switching on for callers that validate many times per puzzle. Cells
+     * must then only be changed through setCell().
+     *
+     * @param enabled True to keep the counts as cells change.
+     */
+    public abstract void setIncrementalValidation(boolean enabled);
+
     public abstract boolean checkComplete();
 
     public abstract ArrayList<Integer> getDigits();
@@ -13,65 +13,142 @@ public class AlgorXSolver extends StdSudokuSolver {
     private int gridSize = -1;
     algXMatrix xMatrix;
 
+    // Search stacks, the column satisfied and row selected at each level
+    private int[] colStack;
+    private int[] rowStack;
+
     @Override
     public boolean solve(SudokuGrid grid) {
-        gridSize = grid.getSize();
-        xMatrix = new algXMatrix(gridSize);
+        /*
+         * The empty matrix only depends on the grid size, so it is kept between
+         * calls. Givens are applied for each puzzle and undone afterwards
+         */
+        if (xMatrix == null || gridSize != grid.getSize()) {
+            gridSize = grid.getSize();
+            xMatrix = new algXMatrix(gridSize);
+
+            colStack = new int[gridSize * gridSize];
+            rowStack = new int[gridSize * gridSize];
+        }
 
+        resetStats();
         xMatrix.init(grid);
 
-        return performCalcs(grid);
+        boolean solved = performCalcs(grid);
+
+        xMatrix.clear();
+
+        return solved;
     } // end of solve()
 
     private boolean performCalcs(SudokuGrid grid) {
-        int minCol = findMinCol();
+        /*
+         * Depth first search kept on explicit stacks rather than recursion. Each
+         * level holds the column being satisfied and the row currently selected
+         * for it, or -1 before its first row
+         */
+        int depth = 0;
+        boolean solved = false;
 
-        if (minCol == -1) {
-            // All constraints have been satisfied
-            return true;
-        }
+        while (true) {
+            int minCol = findMinCol();
 
-        if (xMatrix.colSums[minCol] == 0) {
-            // Not possible to fulfill this constraint
-            return false;
-        }
+            if (minCol == -1) {
+                // All constraints have been satisfied
+                solved = true;
+                break;
+            }
+
+            if (xMatrix.colSums[minCol] != 0) {
+                colStack[depth] = minCol;
+                rowStack[depth] = -1;
+                depth++;
+
+                if (stats != null) {
+                    stats.enterNode();
+                }
+            }
+
+            // Select the next row of the deepest level, leaving levels that have run out
+            boolean selected = false;
+
+            while (depth > 0 && !selected) {
+                int level = depth - 1;
+                int mRow = rowStack[level];
 
-        for (int mRow = 0; mRow < xMatrix.numRows; mRow++) {
-            if (xMatrix.matrix[mRow][minCol]) {
-                int digitPosition = mRow % grid.getSize();
-                int addInRowNum = Math.floorDiv(mRow, gridSize * gridSize);
-                int addInColNum = Math.floorDiv(mRow % (gridSize * gridSize), gridSize);
+                if (mRow != -1) {
+                    xMatrix.resetConstraintsByRow(mRow, gridSize);
+                    grid.setCell(mRow / (gridSize * gridSize), (mRow / gridSize) % gridSize, -1);
+
+                    if (stats != null) {
+                        stats.uncover(4);
+                        stats.backtrack();
+                    }
+                }
 
-                grid.setCell(addInRowNum, addInColNum, digitPosition);
+                mRow = nextRow(colStack[level], mRow + 1);
 
-                xMatrix.removeConstraints(mRow, grid.getSize());
+                if (mRow == -1) {
+                    if (stats != null) {
+                        stats.exitNode();
+                    }
 
-                if (performCalcs(grid)) {
-                    return true;
+                    depth--;
                 } else {
-                    grid.setCell(addInRowNum, addInColNum, -1);
-                    xMatrix.resetConstraintsByRow(mRow, grid.getSize());
+                    rowStack[level] = mRow;
+
+                    grid.setCell(mRow / (gridSize * gridSize), (mRow / gridSize) % gridSize, mRow % gridSize);
+                    xMatrix.removeConstraints(mRow, gridSize);
+
+                    if (stats != null) {
+                        stats.cover(4);
+                    }
+
+                    selected = true;
                 }
             }
+
+            if (!selected) {
+                break;
+            }
+        }
+
+        // Always reset so the matrix can be reused, the solution stays in the grid
+        while (depth > 0) {
+            xMatrix.resetConstraintsByRow(rowStack[--depth], gridSize);
+
+            if (stats != null) {
+                stats.uncover(4);
+            }
+        }
+
+        return solved;
+    }
+
+    private int nextRow(int col, int startRow) {
+        // First row from startRow on that is still in the column
+        for (int mRow = startRow; mRow < xMatrix.numRows; mRow++) {
+            if (xMatrix.matrix[mRow][col]) {
+                return mRow;
+            }
         }
 
-        return false;
+        return -1;
     }
 
     private int findMinCol() {
         /*
-         * Return index of the column with the lowest sum that is also active
+         * Return index of the column with the lowest sum that is also active. Only
+         * active columns are walked, and a column with 0 or 1 rows can't be beaten
          */
         int minCol = -1;
 
-        for (int i = 0; i < xMatrix.numCols; i++) {
-            if (xMatrix.colInclusion[i]) {
-                if (xMatrix.colSums[i] == 0) {
-                    return i;
-                }
+        for (int i = xMatrix.nextActive[xMatrix.numCols]; i != xMatrix.numCols; i = xMatrix.nextActive[i]) {
+            if (minCol == -1 || (xMatrix.colSums[i] < xMatrix.colSums[minCol])) {
+                minCol = i;
 
-                if (minCol == -1 || (xMatrix.colSums[i] < xMatrix.colSums[minCol])) {
-                    minCol = i;
+                if (xMatrix.colSums[i] <= 1) {
+                    break;
                 }
             }
         }
@@ -85,6 +162,17 @@ public class AlgorXSolver extends StdSudokuSolver {
         public boolean[] colInclusion;
         public int[] colSums;
 
+        // Doubly linked list of active columns, with numCols as the sentinel
+        public int[] prevActive;
+        public int[] nextActive;
+
+        // The 4 constraint columns of each row, at 4 * rowNum
+        private int[] rowColumns;
+
+        // Rows removed for the givens of the current puzzle
+        private int[] givenRows;
+        private int numGivens;
+
         public int numRows;
         public int numCols;
 
@@ -100,23 +188,31 @@ public class AlgorXSolver extends StdSudokuSolver {
             colInclusion = new boolean[numCols];
             colSums = new int[numCols];
 
+            prevActive = new int[numCols + 1];
+            nextActive = new int[numCols + 1];
+
             for (int colNum = 0; colNum < numCols; colNum++) {
                 colInclusion[colNum] = true;
                 colSums[colNum] = dimensions;
             }
 
-            for (int rowNum = 0; rowNum < numRows; rowNum++) {
-                // cell constraint
-                matrix[rowNum][cellConstraintByRow(rowNum, dimensions)] = true;
+            for (int colNum = 0; colNum <= numCols; colNum++) {
+                prevActive[colNum] = colNum == 0 ? numCols : colNum - 1;
+                nextActive[colNum] = colNum == numCols ? 0 : colNum + 1;
+            }
 
-                // row constraint
-                matrix[rowNum][rowConstraintByRow(rowNum, dimensions)] = true;
+            rowColumns = new int[4 * numRows];
+            givenRows = new int[dimensions * dimensions];
 
-                // col constraint
-                matrix[rowNum][colConstraintByRow(rowNum, dimensions)] = true;
+            for (int rowNum = 0; rowNum < numRows; rowNum++) {
+                rowColumns[4 * rowNum] = cellConstraintByRow(rowNum, dimensions);
+                rowColumns[4 * rowNum + 1] = rowConstraintByRow(rowNum, dimensions);
+                rowColumns[4 * rowNum + 2] = colConstraintByRow(rowNum, dimensions);
+                rowColumns[4 * rowNum + 3] = boxConstraintByRow(rowNum, dimensions);
 
-                // box constraint
-                matrix[rowNum][boxConstraintByRow(rowNum, dimensions)] = true;
+                for (int k = 4 * rowNum; k < 4 * rowNum + 4; k++) {
+                    matrix[rowNum][rowColumns[k]] = true;
+                }
             }
         }
 
@@ -126,163 +222,103 @@ public class AlgorXSolver extends StdSudokuSolver {
              */
             int gridSize = grid.getSize();
 
+            numGivens = 0;
+
             for (int row = 0; row < gridSize; row++) {
                 for (int col = 0; col < gridSize; col++) {
                     if (grid.getCellValue(row, col) != 0) {
-                        removeConstraints(gridSize * gridSize * row + gridSize * col
-                                + grid.getDigitPosition(grid.getCellValue(row, col)), gridSize);
+                        int rowNum = gridSize * gridSize * row + gridSize * col
+                                + grid.getDigitPosition(grid.getCellValue(row, col));
+
+                        removeConstraints(rowNum, gridSize);
+                        givenRows[numGivens++] = rowNum;
                     }
                 }
             }
         }
 
+        public void clear() {
+            /*
+             * Undo the givens in reverse order, returning the matrix to its empty state
+             */
+            while (numGivens > 0) {
+                resetConstraintsByRow(givenRows[--numGivens], gridSize);
+            }
+        }
+
         public void removeConstraints(int rowNum, int gridSize) {
             /*
              * Set column statuses to false. Then scan each row in Matrix and set any cells
              * in rows with at least one intersecting column with these 4 to false. Leave
-             * cells in these 4 columns alone to help with resetting on backtracking (hence
-             * 4 blocks of if statements)
+             * cells in the 4 removed columns alone to help with resetting on
+             * backtracking. Each row is handled once, so resetting is an exact inverse
              */
-            int cellCol = cellConstraintByRow(rowNum, gridSize);
-            int rowCol = rowConstraintByRow(rowNum, gridSize);
-            int colCol = colConstraintByRow(rowNum, gridSize);
-            int boxCol = boxConstraintByRow(rowNum, gridSize);
+            int cellCol = rowColumns[4 * rowNum];
+            int rowCol = rowColumns[4 * rowNum + 1];
+            int colCol = rowColumns[4 * rowNum + 2];
+            int boxCol = rowColumns[4 * rowNum + 3];
 
-            colInclusion[cellCol] = false;
-            colInclusion[rowCol] = false;
-            colInclusion[colCol] = false;
-            colInclusion[boxCol] = false;
+            deactivateCol(cellCol);
+            deactivateCol(rowCol);
+            deactivateCol(colCol);
+            deactivateCol(boxCol);
 
             for (int i = 0; i < numRows; i++) {
-                if (matrix[i][cellCol]) {
-                    int tempCol1 = rowConstraintByRow(i, gridSize);
-                    int tempCol2 = colConstraintByRow(i, gridSize);
-                    int tempCol3 = boxConstraintByRow(i, gridSize);
-
-                    colSums[tempCol1]--;
-                    colSums[tempCol2]--;
-                    colSums[tempCol3]--;
-
-                    matrix[i][tempCol1] = false;
-                    matrix[i][tempCol2] = false;
-                    matrix[i][tempCol3] = false;
-                }
-
-                if (matrix[i][rowCol]) {
-                    int tempCol1 = cellConstraintByRow(i, gridSize);
-                    int tempCol2 = colConstraintByRow(i, gridSize);
-                    int tempCol3 = boxConstraintByRow(i, gridSize);
-
-                    colSums[tempCol1]--;
-                    colSums[tempCol2]--;
-                    colSums[tempCol3]--;
-
-                    matrix[i][tempCol1] = false;
-                    matrix[i][tempCol2] = false;
-                    matrix[i][tempCol3] = false;
-                }
-
-                if (matrix[i][colCol]) {
-                    int tempCol1 = cellConstraintByRow(i, gridSize);
-                    int tempCol2 = rowConstraintByRow(i, gridSize);
-                    int tempCol3 = boxConstraintByRow(i, gridSize);
-
-                    colSums[tempCol1]--;
-                    colSums[tempCol2]--;
-                    colSums[tempCol3]--;
-
-                    matrix[i][tempCol1] = false;
-                    matrix[i][tempCol2] = false;
-                    matrix[i][tempCol3] = false;
-                }
-
-                if (matrix[i][boxCol]) {
-                    int tempCol1 = cellConstraintByRow(i, gridSize);
-                    int tempCol2 = rowConstraintByRow(i, gridSize);
-                    int tempCol3 = colConstraintByRow(i, gridSize);
-
-                    colSums[tempCol1]--;
-                    colSums[tempCol2]--;
-                    colSums[tempCol3]--;
-
-                    matrix[i][tempCol1] = false;
-                    matrix[i][tempCol2] = false;
-                    matrix[i][tempCol3] = false;
+                if (matrix[i][cellCol] || matrix[i][rowCol] || matrix[i][colCol] || matrix[i][boxCol]) {
+                    for (int k = 4 * i; k < 4 * i + 4; k++) {
+                        int tempCol = rowColumns[k];
+
+                        if (colInclusion[tempCol]) {
+                            colSums[tempCol]--;
+                            matrix[i][tempCol] = false;
+                        }
+                    }
                 }
             }
         }
 
         public void resetConstraintsByRow(int rowNum, int gridSize) {
             /*
-             * Reset all constraints in rows where a true is detected in the removed columns
+             * Reset all constraints in rows where a true is detected in the removed
+             * columns. Columns are reactivated afterwards so they are skipped here
              */
-            int cellCol = cellConstraintByRow(rowNum, gridSize);
-            int rowCol = rowConstraintByRow(rowNum, gridSize);
-            int colCol = colConstraintByRow(rowNum, gridSize);
-            int boxCol = boxConstraintByRow(rowNum, gridSize);
-
-            colInclusion[cellCol] = true;
-            colInclusion[rowCol] = true;
-            colInclusion[colCol] = true;
-            colInclusion[boxCol] = true;
+            int cellCol = rowColumns[4 * rowNum];
+            int rowCol = rowColumns[4 * rowNum + 1];
+            int colCol = rowColumns[4 * rowNum + 2];
+            int boxCol = rowColumns[4 * rowNum + 3];
 
             for (int i = 0; i < numRows; i++) {
-                if (matrix[i][cellCol]) {
-                    int tempCol1 = rowConstraintByRow(i, gridSize);
-                    int tempCol2 = colConstraintByRow(i, gridSize);
-                    int tempCol3 = boxConstraintByRow(i, gridSize);
-
-                    colSums[tempCol1]++;
-                    colSums[tempCol2]++;
-                    colSums[tempCol3]++;
-
-                    matrix[i][tempCol1] = true;
-                    matrix[i][tempCol2] = true;
-                    matrix[i][tempCol3] = true;
-                }
-
-                if (matrix[i][rowCol]) {
-                    int tempCol1 = cellConstraintByRow(i, gridSize);
-                    int tempCol2 = colConstraintByRow(i, gridSize);
-                    int tempCol3 = boxConstraintByRow(i, gridSize);
-
-                    colSums[tempCol1]++;
-                    colSums[tempCol2]++;
-                    colSums[tempCol3]++;
-
-                    matrix[i][tempCol1] = true;
-                    matrix[i][tempCol2] = true;
-                    matrix[i][tempCol3] = true;
+                if (matrix[i][cellCol] || matrix[i][rowCol] || matrix[i][colCol] || matrix[i][boxCol]) {
+                    for (int k = 4 * i; k < 4 * i + 4; k++) {
+                        int tempCol = rowColumns[k];
+
+                        if (colInclusion[tempCol]) {
+                            colSums[tempCol]++;
+                            matrix[i][tempCol] = true;
+                        }
+                    }
                 }
+            }
 
-                if (matrix[i][colCol]) {
-                    int tempCol1 = cellConstraintByRow(i, gridSize);
-                    int tempCol2 = rowConstraintByRow(i, gridSize);
-                    int tempCol3 = boxConstraintByRow(i, gridSize);
+            // Reverse order of removal so the active column list relinks correctly
+            activateCol(boxCol);
+            activateCol(colCol);
+            activateCol(rowCol);
+            activateCol(cellCol);
+        }
 
-                    colSums[tempCol1]++;
-                    colSums[tempCol2]++;
-                    colSums[tempCol3]++;
+        private void deactivateCol(int col) {
+            colInclusion[col] = false;
 
-                    matrix[i][tempCol1] = true;
-                    matrix[i][tempCol2] = true;
-                    matrix[i][tempCol3] = true;
-                }
-
-                if (matrix[i][boxCol]) {
-                    int tempCol1 = cellConstraintByRow(i, gridSize);
-                    int tempCol2 = rowConstraintByRow(i, gridSize);
-                    int tempCol3 = colConstraintByRow(i, gridSize);
+            nextActive[prevActive[col]] = nextActive[col];
+            prevActive[nextActive[col]] = prevActive[col];
+        }
 
-                    colSums[tempCol1]++;
-                    colSums[tempCol2]++;
-                    colSums[tempCol3]++;
+        private void activateCol(int col) {
+            colInclusion[col] = true;
 
-                    matrix[i][tempCol1] = true;
-                    matrix[i][tempCol2] = true;
-                    matrix[i][tempCol3] = true;
-                }
-            }
+            nextActive[prevActive[col]] = col;
+            prevActive[nextActive[col]] = col;
         }
 
         // Helper methods that return column of constraints for a given row
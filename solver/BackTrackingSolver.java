@@ -16,6 +16,10 @@ public class BackTrackingSolver extends StdSudokuSolver {
     private StdSudokuGrid grid;
     private int gridDimensions;
 
+    // Search stacks, the cell and digit tried at each level
+    private int[] cellStack;
+    private int[] digitStack;
+
     public BackTrackingSolver() {
         // No constructor needed
     } // end of BackTrackingSolver()
@@ -26,30 +30,88 @@ public class BackTrackingSolver extends StdSudokuSolver {
 
         gridDimensions = this.grid.getSize();
 
-        for (int i = 0; i < gridDimensions * gridDimensions; i++) {
-            int row = i / gridDimensions;
-            int col = i % gridDimensions;
+        resetStats();
 
-            if (grid.getCellValue(row, col) == 0) {
-                for (int digit = 0; digit < gridDimensions; digit++) {
-                    this.grid.setCell(row, col, digit);
+        return solveNext();
+    } // end of solve()
 
-                    if (checkInsertion(row, col)) {
-                        if (this.grid.checkComplete()) {
-                            return true;
-                        } else if (solve(this.grid)) {
-                            return true;
-                        }
-                    }
+    private boolean solveNext() {
+        /*
+         * Depth first search over the empty cells in order. Rather than recursing
+         * per cell, the cell and digit being tried at each level are kept on
+         * explicit stacks, so the depth isn't limited by the thread's stack size
+         */
+        int numCells = gridDimensions * gridDimensions;
+
+        if (cellStack == null || cellStack.length != numCells) {
+            cellStack = new int[numCells];
+            digitStack = new int[numCells];
+        }
+
+        int depth = 0;
+        cellStack[0] = nextEmptyCell(0);
+        digitStack[0] = -1;
+
+        if (cellStack[0] == -1) {
+            return false;
+        }
+
+        if (stats != null) {
+            stats.enterNode();
+        }
+
+        while (depth >= 0) {
+            int row = cellStack[depth] / gridDimensions;
+            int col = cellStack[depth] % gridDimensions;
+            int digit = ++digitStack[depth];
+
+            if (digit == gridDimensions) {
+                // Every digit failed, clear the cell and return to the previous one
+                grid.setCell(row, col, -1);
+
+                if (stats != null) {
+                    stats.backtrack();
+                    stats.exitNode();
                 }
 
-                this.grid.setCell(row, col, -1);
-                return false;
+                depth--;
+                continue;
+            }
+
+            grid.setCell(row, col, digit);
+
+            if (checkInsertion(row, col)) {
+                if (grid.checkComplete()) {
+                    return true;
+                }
+
+                // Cells before this one are all filled
+                int nextCell = nextEmptyCell(cellStack[depth] + 1);
+
+                if (nextCell != -1) {
+                    depth++;
+                    cellStack[depth] = nextCell;
+                    digitStack[depth] = -1;
+
+                    if (stats != null) {
+                        stats.enterNode();
+                    }
+                }
             }
         }
 
         return false;
-    } // end of solve()
+    }
+
+    private int nextEmptyCell(int startIndex) {
+        for (int i = startIndex; i < gridDimensions * gridDimensions; i++) {
+            if (grid.getCellValue(i / gridDimensions, i % gridDimensions) == 0) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
 
     private boolean checkInsertion(int rowNum, int colNum) {
         int boxSize = (int) Math.sqrt(gridDimensions);
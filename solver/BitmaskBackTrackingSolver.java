@@ -0,0 +1,201 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * Implemented by Dylan Pleiter (s3252987)
+ */
+
+package solver;
+
+import grid.SudokuGrid;
+
+/**
+ * Backtracking solver for standard Sudoku that tracks the digits used in each
+ * row, column and box as bitmasks of digit positions. Masks are updated
+ * incrementally as cells are set, so checking an insertion is O(1) and
+ * allocates nothing.
+ */
+public class BitmaskBackTrackingSolver extends StdSudokuSolver {
+    private SudokuGrid grid;
+    private int gridDimensions;
+    private int boxSize;
+
+    private long[] rowMasks;
+    private long[] colMasks;
+    private long[] boxMasks;
+
+    // Search stacks, the cell and digit tried at each level
+    private int[] cellStack;
+    private int[] digitStack;
+
+    public BitmaskBackTrackingSolver() {
+        // No constructor needed
+    } // end of BitmaskBackTrackingSolver()
+
+    @Override
+    public boolean solve(SudokuGrid grid) {
+        this.grid = grid;
+
+        gridDimensions = grid.getSize();
+        boxSize = (int) Math.sqrt(gridDimensions);
+
+        if (gridDimensions > Long.SIZE) {
+            throw new IllegalArgumentException("Bitmask solver supports at most " + Long.SIZE + " digits");
+        }
+
+        resetStats();
+
+        if (!initMasks()) {
+            return false;
+        }
+
+        return solveFrom(0);
+    } // end of solve()
+
+    private boolean initMasks() {
+        /*
+         * Build row, column and box masks from the givens. Returns false if the
+         * givens already conflict
+         */
+        rowMasks = new long[gridDimensions];
+        colMasks = new long[gridDimensions];
+        boxMasks = new long[gridDimensions];
+
+        for (int row = 0; row < gridDimensions; row++) {
+            for (int col = 0; col < gridDimensions; col++) {
+                int cellValue = grid.getCellValue(row, col);
+
+                if (cellValue == 0)
+                    continue;
+
+                int digit = grid.getDigitPosition(cellValue);
+
+                if (!checkInsertion(row, col, digit)) {
+                    return false;
+                }
+
+                markDigit(row, col, digit);
+            }
+        }
+
+        return true;
+    }
+
+    private boolean solveFrom(int startIndex) {
+        /*
+         * Depth first search over the empty cells in order. Rather than recursing
+         * per cell, the cell and digit being tried at each level are kept on
+         * explicit stacks, so the depth isn't limited by the thread's stack size
+         */
+        int numCells = gridDimensions * gridDimensions;
+
+        if (cellStack == null || cellStack.length != numCells) {
+            cellStack = new int[numCells];
+            digitStack = new int[numCells];
+        }
+
+        int depth = 0;
+        cellStack[0] = nextEmptyCell(startIndex);
+        digitStack[0] = -1;
+
+        if (cellStack[0] == -1) {
+            // No empty cells left
+            return true;
+        }
+
+        if (stats != null) {
+            stats.enterNode();
+        }
+
+        while (depth >= 0) {
+            int row = cellStack[depth] / gridDimensions;
+            int col = cellStack[depth] % gridDimensions;
+
+            if (digitStack[depth] != -1) {
+                // Take back the digit tried last at this level
+                clearCell(row, col, digitStack[depth]);
+
+                if (stats != null) {
+                    stats.backtrack();
+                }
+            }
+
+            int digit = digitStack[depth] + 1;
+
+            while (digit < gridDimensions && !checkInsertion(row, col, digit)) {
+                digit++;
+            }
+
+            if (digit == gridDimensions) {
+                // Every digit failed, return to the previous cell
+                if (stats != null) {
+                    stats.exitNode();
+                }
+
+                depth--;
+                continue;
+            }
+
+            digitStack[depth] = digit;
+            setCell(row, col, digit);
+
+            int nextCell = nextEmptyCell(cellStack[depth] + 1);
+
+            if (nextCell == -1) {
+                // No empty cells left
+                return true;
+            }
+
+            depth++;
+            cellStack[depth] = nextCell;
+            digitStack[depth] = -1;
+
+            if (stats != null) {
+                stats.enterNode();
+            }
+        }
+
+        return false;
+    }
+
+    private int nextEmptyCell(int startIndex) {
+        for (int i = startIndex; i < gridDimensions * gridDimensions; i++) {
+            if (grid.getCellValue(i / gridDimensions, i % gridDimensions) == 0) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private void setCell(int row, int col, int digit) {
+        grid.setCell(row, col, digit);
+        markDigit(row, col, digit);
+    }
+
+    private void clearCell(int row, int col, int digit) {
+        grid.setCell(row, col, -1);
+
+        long clearBit = ~(1L << digit);
+
+        rowMasks[row] &= clearBit;
+        colMasks[col] &= clearBit;
+        boxMasks[boxIndex(row, col)] &= clearBit;
+    }
+
+    private void markDigit(int row, int col, int digit) {
+        long digitBit = 1L << digit;
+
+        rowMasks[row] |= digitBit;
+        colMasks[col] |= digitBit;
+        boxMasks[boxIndex(row, col)] |= digitBit;
+    }
+
+    private boolean checkInsertion(int row, int col, int digit) {
+        long used = rowMasks[row] | colMasks[col] | boxMasks[boxIndex(row, col)];
+
+        return (used & (1L << digit)) == 0;
+    }
+
+    private int boxIndex(int row, int col) {
+        return (row / boxSize) * boxSize + col / boxSize;
+    }
+} // end of class BitmaskBackTrackingSolver()
@@ -0,0 +1,394 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * Implemented by Dylan Pleiter (s3252987)
+ */
+
+package solver;
+
+import grid.SudokuGrid;
+
+/**
+ * Algorithm X solver for standard Sudoku that stores the exact cover matrix
+ * as bitsets. Each column keeps the set of rows it contains as longs, and
+ * the rows still available are another bitset, so the rows removed by a
+ * selection are found a word at a time. The 4 columns of a row are computed
+ * from the row number, so no per row storage is needed.
+ */
+public class BitsetAlgorXSolver extends StdSudokuSolver {
+    private int gridDimensions = -1;
+    private int boxSize;
+
+    private int numRows;
+    private int numCols;
+    // Longs per row bitset
+    private int numWords;
+
+    // Rows of each column, numWords longs per column
+    private long[] colRows;
+    // First and last word holding rows of each column
+    private int[] colFirstWord;
+    private int[] colLastWord;
+
+    // Rows that haven't been removed by a selected row
+    private long[] liveRows;
+    // Live rows in each column
+    private int[] colSums;
+
+    // Doubly linked list of active columns, with numCols as the sentinel
+    private int[] prevActive;
+    private int[] nextActive;
+
+    // The 4 constraint columns of each row, at 4 * rowNum
+    private int[] rowColumns;
+
+    // Words of removed rows, undone in reverse order
+    private int[] trailWords;
+    private long[] trailBits;
+    private int trailSize;
+
+    // Rows selected for the givens of the current puzzle, with their trail marks
+    private int[] givenRows;
+    private int[] givenMarks;
+    private int numGivens;
+
+    // Search stacks, one entry per level
+    private int[] colStack;
+    private int[] wordStack;
+    private long[] candidateStack;
+    private int[] rowStack;
+    private int[] markStack;
+
+    public BitsetAlgorXSolver() {
+        // No constructor needed
+    } // end of BitsetAlgorXSolver()
+
+    @Override
+    public boolean solve(SudokuGrid grid) {
+        /*
+         * The empty matrix only depends on the grid size, so it is kept between
+         * calls. Givens are applied for each puzzle and undone afterwards
+         */
+        if (colRows == null || gridDimensions != grid.getSize()) {
+            gridDimensions = grid.getSize();
+            initMatrix();
+        }
+
+        resetStats();
+
+        boolean solved = applyGivens(grid) && performCalcs(grid);
+
+        removeGivens();
+
+        return solved;
+    } // end of solve()
+
+    private void initMatrix() {
+        boxSize = (int) Math.sqrt(gridDimensions);
+
+        numRows = gridDimensions * gridDimensions * gridDimensions;
+        numCols = 4 * gridDimensions * gridDimensions;
+        numWords = (numRows + Long.SIZE - 1) / Long.SIZE;
+
+        colRows = new long[numCols * numWords];
+        colFirstWord = new int[numCols];
+        colLastWord = new int[numCols];
+        colSums = new int[numCols];
+
+        liveRows = new long[numWords];
+        rowColumns = new int[4 * numRows];
+
+        for (int colNum = 0; colNum < numCols; colNum++) {
+            colFirstWord[colNum] = numWords;
+            colLastWord[colNum] = -1;
+        }
+
+        for (int rowNum = 0; rowNum < numRows; rowNum++) {
+            rowColumns[4 * rowNum] = cellConstraintByRow(rowNum);
+            rowColumns[4 * rowNum + 1] = rowConstraintByRow(rowNum);
+            rowColumns[4 * rowNum + 2] = colConstraintByRow(rowNum);
+            rowColumns[4 * rowNum + 3] = boxConstraintByRow(rowNum);
+
+            int word = rowNum / Long.SIZE;
+
+            for (int k = 4 * rowNum; k < 4 * rowNum + 4; k++) {
+                int colNum = rowColumns[k];
+
+                colRows[colNum * numWords + word] |= 1L << rowNum;
+                colSums[colNum]++;
+
+                colFirstWord[colNum] = Math.min(colFirstWord[colNum], word);
+                colLastWord[colNum] = Math.max(colLastWord[colNum], word);
+            }
+
+            liveRows[word] |= 1L << rowNum;
+        }
+
+        prevActive = new int[numCols + 1];
+        nextActive = new int[numCols + 1];
+
+        for (int colNum = 0; colNum <= numCols; colNum++) {
+            prevActive[colNum] = colNum == 0 ? numCols : colNum - 1;
+            nextActive[colNum] = colNum == numCols ? 0 : colNum + 1;
+        }
+
+        // Every removed row is on the trail at most once
+        trailWords = new int[numRows];
+        trailBits = new long[numRows];
+        trailSize = 0;
+
+        givenRows = new int[gridDimensions * gridDimensions];
+        givenMarks = new int[gridDimensions * gridDimensions];
+        numGivens = 0;
+
+        colStack = new int[gridDimensions * gridDimensions];
+        wordStack = new int[gridDimensions * gridDimensions];
+        candidateStack = new long[gridDimensions * gridDimensions];
+        rowStack = new int[gridDimensions * gridDimensions];
+        markStack = new int[gridDimensions * gridDimensions];
+    }
+
+    private boolean applyGivens(SudokuGrid grid) {
+        /*
+         * Select the row of each given. Returns false if a given's row was already
+         * removed by an earlier given, as the givens then conflict
+         */
+        numGivens = 0;
+
+        for (int row = 0; row < gridDimensions; row++) {
+            for (int col = 0; col < gridDimensions; col++) {
+                if (grid.getCellValue(row, col) != 0) {
+                    int rowNum = gridDimensions * gridDimensions * row + gridDimensions * col
+                            + grid.getDigitPosition(grid.getCellValue(row, col));
+
+                    if ((liveRows[rowNum / Long.SIZE] & (1L << rowNum)) == 0) {
+                        return false;
+                    }
+
+                    givenMarks[numGivens] = selectRow(rowNum);
+                    givenRows[numGivens++] = rowNum;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private void removeGivens() {
+        // Undo in reverse order, returning the matrix to its empty state
+        while (numGivens > 0) {
+            numGivens--;
+            unselectRow(givenRows[numGivens], givenMarks[numGivens]);
+        }
+    }
+
+    private boolean performCalcs(SudokuGrid grid) {
+        /*
+         * Depth first search kept on explicit stacks rather than recursion. Each
+         * level holds the column being satisfied, the word of its rows being
+         * tried, the untried rows left in that word and the selected row with
+         * its trail mark, or -1 before its first row
+         */
+        int depth = 0;
+        boolean solved = false;
+
+        while (true) {
+            int minCol = findMinCol();
+
+            if (minCol == -1) {
+                // All constraints have been satisfied
+                solved = true;
+                break;
+            }
+
+            if (colSums[minCol] != 0) {
+                colStack[depth] = minCol;
+                wordStack[depth] = colFirstWord[minCol] - 1;
+                candidateStack[depth] = 0;
+                rowStack[depth] = -1;
+                depth++;
+
+                if (stats != null) {
+                    stats.enterNode();
+                }
+            }
+
+            // Select the next row of the deepest level, leaving levels that have run out
+            boolean selected = false;
+
+            while (depth > 0 && !selected) {
+                int level = depth - 1;
+                int mRow = rowStack[level];
+
+                if (mRow != -1) {
+                    unselectRow(mRow, markStack[level]);
+                    grid.setCell(mRow / (gridDimensions * gridDimensions), (mRow / gridDimensions) % gridDimensions,
+                            -1);
+
+                    if (stats != null) {
+                        stats.uncover(4);
+                        stats.backtrack();
+                    }
+                }
+
+                int colNum = colStack[level];
+
+                // Rows are restored before the next one is tried, so each word is read once
+                while (candidateStack[level] == 0 && wordStack[level] < colLastWord[colNum]) {
+                    int word = ++wordStack[level];
+
+                    candidateStack[level] = colRows[colNum * numWords + word] & liveRows[word];
+                }
+
+                long candidates = candidateStack[level];
+
+                if (candidates == 0) {
+                    if (stats != null) {
+                        stats.exitNode();
+                    }
+
+                    depth--;
+                } else {
+                    mRow = wordStack[level] * Long.SIZE + Long.numberOfTrailingZeros(candidates);
+                    candidateStack[level] = candidates & (candidates - 1);
+                    rowStack[level] = mRow;
+
+                    grid.setCell(mRow / (gridDimensions * gridDimensions), (mRow / gridDimensions) % gridDimensions,
+                            mRow % gridDimensions);
+                    markStack[level] = selectRow(mRow);
+
+                    if (stats != null) {
+                        stats.cover(4);
+                    }
+
+                    selected = true;
+                }
+            }
+
+            if (!selected) {
+                break;
+            }
+        }
+
+        // Always unselect so the matrix can be reused, the solution stays in the grid
+        while (depth > 0) {
+            depth--;
+            unselectRow(rowStack[depth], markStack[depth]);
+
+            if (stats != null) {
+                stats.uncover(4);
+            }
+        }
+
+        return solved;
+    }
+
+    private int findMinCol() {
+        /*
+         * Return index of the active column with the lowest sum, or -1 if there are
+         * none. A column with 0 or 1 rows can't be beaten
+         */
+        int minCol = -1;
+
+        for (int i = nextActive[numCols]; i != numCols; i = nextActive[i]) {
+            if (minCol == -1 || colSums[i] < colSums[minCol]) {
+                minCol = i;
+
+                if (colSums[i] <= 1) {
+                    break;
+                }
+            }
+        }
+
+        return minCol;
+    }
+
+    private int selectRow(int rowNum) {
+        /*
+         * Deactivate the 4 columns of the row and remove every live row in them,
+         * including the row itself. Returns the trail size beforehand, which
+         * unselectRow() undoes back to
+         */
+        int mark = trailSize;
+
+        for (int k = 4 * rowNum; k < 4 * rowNum + 4; k++) {
+            int colNum = rowColumns[k];
+            int colBase = colNum * numWords;
+
+            deactivateCol(colNum);
+
+            for (int word = colFirstWord[colNum]; word <= colLastWord[colNum]; word++) {
+                long removed = colRows[colBase + word] & liveRows[word];
+
+                if (removed != 0) {
+                    liveRows[word] &= ~removed;
+
+                    trailWords[trailSize] = word;
+                    trailBits[trailSize++] = removed;
+
+                    updateColSums(word, removed, -1);
+                }
+            }
+        }
+
+        return mark;
+    }
+
+    private void unselectRow(int rowNum, int mark) {
+        // Restore removed rows in reverse order, then reactivate the columns
+        while (trailSize > mark) {
+            trailSize--;
+
+            liveRows[trailWords[trailSize]] |= trailBits[trailSize];
+
+            updateColSums(trailWords[trailSize], trailBits[trailSize], 1);
+        }
+
+        for (int k = 4 * rowNum + 3; k >= 4 * rowNum; k--) {
+            activateCol(rowColumns[k]);
+        }
+    }
+
+    private void updateColSums(int word, long rows, int delta) {
+        // Adjust the column sums of each row in a word
+        while (rows != 0) {
+            int rowNum = word * Long.SIZE + Long.numberOfTrailingZeros(rows);
+            rows &= rows - 1;
+
+            for (int k = 4 * rowNum; k < 4 * rowNum + 4; k++) {
+                colSums[rowColumns[k]] += delta;
+            }
+        }
+    }
+
+    private void deactivateCol(int col) {
+        nextActive[prevActive[col]] = nextActive[col];
+        prevActive[nextActive[col]] = prevActive[col];
+    }
+
+    private void activateCol(int col) {
+        nextActive[prevActive[col]] = col;
+        prevActive[nextActive[col]] = col;
+    }
+
+    // Helper methods that return column of constraints for a given row
+    private int cellConstraintByRow(int rowNum) {
+        return rowNum / gridDimensions;
+    }
+
+    private int rowConstraintByRow(int rowNum) {
+        return (gridDimensions * gridDimensions) + gridDimensions * (rowNum / (gridDimensions * gridDimensions))
+                + rowNum % gridDimensions;
+    }
+
+    private int colConstraintByRow(int rowNum) {
+        return 2 * gridDimensions * gridDimensions + rowNum % (gridDimensions * gridDimensions);
+    }
+
+    private int boxConstraintByRow(int rowNum) {
+        int gridRow = rowNum / (gridDimensions * gridDimensions);
+        int gridCol = (rowNum / gridDimensions) % gridDimensions;
+        int box = (gridRow / boxSize) * boxSize + gridCol / boxSize;
+
+        return 3 * gridDimensions * gridDimensions + gridDimensions * box + rowNum % gridDimensions;
+    }
+} // end of class BitsetAlgorXSolver
@@ -0,0 +1,211 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * Implemented by Dylan Pleiter (s3252987)
+ */
+
+package solver;
+
+/**
+ * Array backed dancing links matrix. Every node is an index into parallel
+ * link arrays, so covering and uncovering columns is pure index arithmetic
+ * with no node objects to allocate or chase.
+ *
+ * Node 0 is the root, nodes 1..numCols are the column headers and matrix rows
+ * are appended after them with addRow().
+ */
+class DancingLinksMatrix {
+    static final int ROOT = 0;
+
+    private int[] left;
+    private int[] right;
+    private int[] up;
+    private int[] down;
+
+    // Column header of each node and matrix row id of each node
+    private int[] column;
+    private int[] rowIds;
+
+    // Number of nodes currently in each column, indexed by header node
+    private int[] size;
+
+    // First node of each matrix row, -1 for rows that were never added
+    private int[] rowNodes;
+
+    private int numCols;
+    private int numNodes;
+
+    public DancingLinksMatrix(int numCols, int numRows, int maxRowNodes) {
+        this.numCols = numCols;
+
+        int capacity = numCols + 1 + maxRowNodes;
+
+        left = new int[capacity];
+        right = new int[capacity];
+        up = new int[capacity];
+        down = new int[capacity];
+        column = new int[capacity];
+        rowIds = new int[capacity];
+        size = new int[numCols + 1];
+
+        rowNodes = new int[numRows];
+
+        for (int row = 0; row < numRows; row++) {
+            rowNodes[row] = -1;
+        }
+
+        // Link root and column headers into a circular list
+        for (int node = 0; node <= numCols; node++) {
+            left[node] = node == 0 ? numCols : node - 1;
+            right[node] = node == numCols ? 0 : node + 1;
+            up[node] = node;
+            down[node] = node;
+            column[node] = node;
+            rowIds[node] = -1;
+        }
+
+        numNodes = numCols + 1;
+    }
+
+    public DancingLinksMatrix(DancingLinksMatrix other) {
+        /*
+         * Independent copy of another matrix, including its current cover state.
+         * Column, row id and row start arrays never change once rows are added, so
+         * they are shared rather than copied. No rows should be added to either
+         * matrix afterwards
+         */
+        left = other.left.clone();
+        right = other.right.clone();
+        up = other.up.clone();
+        down = other.down.clone();
+        size = other.size.clone();
+
+        column = other.column;
+        rowIds = other.rowIds;
+        rowNodes = other.rowNodes;
+
+        numCols = other.numCols;
+        numNodes = other.numNodes;
+    }
+
+    public void addRow(int rowId, int[] cols, int numRowCols) {
+        /*
+         * Append a row covering the given columns (0 based column numbers) to the
+         * bottom of each of those columns
+         */
+        int first = numNodes;
+
+        for (int i = 0; i < numRowCols; i++) {
+            int node = numNodes++;
+            int header = cols[i] + 1;
+
+            column[node] = header;
+            rowIds[node] = rowId;
+
+            // vertical links, insert above the header (bottom of column)
+            up[node] = up[header];
+            down[node] = header;
+            down[up[header]] = node;
+            up[header] = node;
+            size[header]++;
+
+            // horizontal links
+            left[node] = i == 0 ? node : node - 1;
+            right[node] = first;
+            right[left[node]] = node;
+            left[first] = node;
+        }
+
+        rowNodes[rowId] = first;
+    }
+
+    public void cover(int header) {
+        right[left[header]] = right[header];
+        left[right[header]] = left[header];
+
+        for (int row = down[header]; row != header; row = down[row]) {
+            for (int node = right[row]; node != row; node = right[node]) {
+                up[down[node]] = up[node];
+                down[up[node]] = down[node];
+                size[column[node]]--;
+            }
+        }
+    }
+
+    public void uncover(int header) {
+        for (int row = up[header]; row != header; row = up[row]) {
+            for (int node = left[row]; node != row; node = left[node]) {
+                size[column[node]]++;
+                up[down[node]] = node;
+                down[up[node]] = node;
+            }
+        }
+
+        right[left[header]] = header;
+        left[right[header]] = header;
+    }
+
+    public void coverRowColumns(int rowNode) {
+        // Cover the other columns of a row whose own column is already covered
+        for (int node = right[rowNode]; node != rowNode; node = right[node]) {
+            cover(column[node]);
+        }
+    }
+
+    public void uncoverRowColumns(int rowNode) {
+        for (int node = left[rowNode]; node != rowNode; node = left[node]) {
+            uncover(column[node]);
+        }
+    }
+
+    public void selectRow(int rowId) {
+        // Commit to a row outside of the search, e.g. for givens
+        int rowNode = rowNodes[rowId];
+
+        cover(column[rowNode]);
+        coverRowColumns(rowNode);
+    }
+
+    public void unselectRow(int rowId) {
+        int rowNode = rowNodes[rowId];
+
+        uncoverRowColumns(rowNode);
+        uncover(column[rowNode]);
+    }
+
+    public int findMinCol() {
+        /*
+         * Return header of the live column with the fewest nodes, or ROOT if no
+         * columns remain. Covered columns are unlinked from the header list so are
+         * never visited, and a column with 0 or 1 nodes can't be beaten
+         */
+        int minCol = ROOT;
+
+        for (int header = right[ROOT]; header != ROOT; header = right[header]) {
+            if (minCol == ROOT || size[header] < size[minCol]) {
+                minCol = header;
+
+                if (size[header] <= 1) {
+                    break;
+                }
+            }
+        }
+
+        return minCol;
+    }
+
+    public int getColSum(int header) {
+        return size[header];
+    }
+
+    public int getBelow(int node) {
+        return down[node];
+    }
+
+    public int getRowId(int node) {
+        return rowIds[node];
+    }
+
+    public int getNumCols() {
+        return numCols;
+    }
+} // end of class DancingLinksMatrix
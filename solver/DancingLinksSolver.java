@@ -5,348 +5,544 @@
 
 package solver;
 
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
 import grid.SudokuGrid;
 
 /**
  * Dancing links solver for standard Sudoku.
+ *
+ * With a parallelism above 1 the top levels of the search are split into
+ * independent subtrees, each searched on its own copy of the matrix on a
+ * fork-join pool. The first subtree to find a solution stops the others.
+ * Each task records statistics of its own, added to the solver's as it
+ * finishes. As subtrees stop at different points once a solution is found,
+ * parallel statistics vary from run to run, and columns covered in copies of
+ * the matrix that are thrown away are never counted as uncovered. close()
+ * shuts the pool down.
+ *
+ * countSolutions() carries on searching past the first solution, so it can
+ * show that a puzzle has exactly one.
  */
 public class DancingLinksSolver extends StdSudokuSolver {
-    private matrixCol[] colHeaders;
+    // Branching levels split into separate tasks before searching sequentially
+    private static final int SPLIT_DEPTH = 2;
+
+    private DancingLinksMatrix matrix;
     private int gridDimensions;
 
+    private int parallelism;
+    private ForkJoinPool pool;
+
+    // Matrix rows of the first solution found by the parallel search
+    private AtomicReference<int[]> parallelSolution = new AtomicReference<int[]>();
+
+    // Matrix rows selected for the givens of the current puzzle
+    private int[] givenRows;
+    private int numGivens;
+
+    // Search stacks, the covered column and selected row node at each level
+    private int[] colStack;
+    private int[] nodeStack;
+
+    // Matrix rows chosen by the search for the first solution found
+    private int[] solutionRows;
+    private int numSolutionRows;
+
+    public DancingLinksSolver() {
+        this(1);
+    } // end of DancingLinksSolver()
+
+    public DancingLinksSolver(int parallelism) {
+        this.parallelism = parallelism;
+    } // end of DancingLinksSolver()
+
     @Override
     public boolean solve(SudokuGrid grid) {
-        gridDimensions = grid.getSize();
-        initMatrix(grid);
+        /*
+         * The empty constraint matrix only depends on the grid size, so it is kept
+         * between calls. Each puzzle applies its givens, searches, then undoes the
+         * givens to leave the matrix ready for the next puzzle
+         */
+        if (matrix == null || gridDimensions != grid.getSize()) {
+            gridDimensions = grid.getSize();
+            initMatrix();
+        }
+
+        resetStats();
+        applyGivens(grid);
+
+        boolean solved;
+
+        if (parallelism > 1) {
+            solved = performParallelCalcs(grid);
+        } else {
+            solved = performCalcs(grid, 1) > 0;
+        }
+
+        removeGivens();
 
-        return performCalcs(grid);
+        return solved;
     } // end of solve()
 
-    private void initMatrix(SudokuGrid grid) {
+    /**
+     * Count the solutions of a grid, stopping once limit have been found. A
+     * limit of 2 checks that a puzzle has a unique solution, giving up as soon
+     * as a second one turns up. The search is always sequential.
+     *
+     * @param grid Grid to count the solutions of. If it has any, it is left
+     *             holding the first one found.
+     * @param limit Most solutions to look for, at least 1.
+     *
+     * @return Number of solutions, at most limit.
+     */
+    public int countSolutions(SudokuGrid grid, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Solution limit must be at least 1");
+        }
+
+        if (matrix == null || gridDimensions != grid.getSize()) {
+            gridDimensions = grid.getSize();
+            initMatrix();
+        }
+
+        resetStats();
+        applyGivens(grid);
+
+        int numSolutions = performCalcs(grid, limit);
+
+        removeGivens();
+
+        if (numSolutions > 0 && limit > 1) {
+            // The search went on past the first solution, so put it back
+            for (int i = 0; i < numSolutionRows; i++) {
+                setRowCell(grid, solutionRows[i], solutionRows[i] % gridDimensions);
+            }
+        }
+
+        return numSolutions;
+    } // end of countSolutions()
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    } // end of close()
+
+    private void initMatrix() {
         int matrixRows = gridDimensions * gridDimensions * gridDimensions;
         int matrixCols = 4 * gridDimensions * gridDimensions;
 
-        colHeaders = new matrixCol[matrixCols];
+        matrix = new DancingLinksMatrix(matrixCols, matrixRows, 4 * matrixRows);
 
-        for (int col = 0; col < matrixCols; col++) {
-            colHeaders[col] = new matrixCol(gridDimensions);
-        }
+        int[] rowCols = new int[4];
 
         for (int row = 0; row < matrixRows; row++) {
-            Node cellConstraint = new Constraint(row);
-            Node rowConstraint = new Constraint(row);
-            Node colConstraint = new Constraint(row);
-            Node boxConstraint = new Constraint(row);
-
-            cellConstraint.setRight(rowConstraint);
-            rowConstraint.setRight(colConstraint);
-            colConstraint.setRight(boxConstraint);
-            boxConstraint.setRight(cellConstraint);
-
-            int cellCol = cellConstraintByRow(row);
-            int rowCol = rowConstraintByRow(row);
-            int colCol = colConstraintByRow(row);
-            int boxCol = boxConstraintByRow(row);
-
-            colHeaders[cellCol].addVertical(cellConstraint);
-            colHeaders[rowCol].addVertical(rowConstraint);
-            colHeaders[colCol].addVertical(colConstraint);
-            colHeaders[boxCol].addVertical(boxConstraint);
+            rowCols[0] = cellConstraintByRow(row);
+            rowCols[1] = rowConstraintByRow(row);
+            rowCols[2] = colConstraintByRow(row);
+            rowCols[3] = boxConstraintByRow(row);
+
+            matrix.addRow(row, rowCols, 4);
         }
 
-        // INIT WITH GRID
+        givenRows = new int[gridDimensions * gridDimensions];
+
+        colStack = new int[gridDimensions * gridDimensions];
+        nodeStack = new int[gridDimensions * gridDimensions];
+        solutionRows = new int[gridDimensions * gridDimensions];
+    }
+
+    private void applyGivens(SudokuGrid grid) {
+        numGivens = 0;
+
         for (int row = 0; row < gridDimensions; row++) {
             for (int col = 0; col < gridDimensions; col++) {
                 if (grid.getCellValue(row, col) != 0) {
                     // Remove from matrix
-                    removeConstraintsByRow(row * gridDimensions * gridDimensions + gridDimensions * col
-                            + grid.getDigitPosition(grid.getCellValue(row, col)));
+                    int matrixRow = row * gridDimensions * gridDimensions + gridDimensions * col
+                            + grid.getDigitPosition(grid.getCellValue(row, col));
+
+                    matrix.selectRow(matrixRow);
+                    givenRows[numGivens++] = matrixRow;
                 }
             }
         }
     }
 
-    private boolean performCalcs(SudokuGrid grid) {
-        // Algorithm works almost exactly the same as algorithm X
-        matrixCol minCol = findMinCol();
-
-        if (minCol == null) {
-            // All constraints have been satisfied
-            return true;
+    private void removeGivens() {
+        // Undo in reverse order so every link is restored exactly
+        while (numGivens > 0) {
+            matrix.unselectRow(givenRows[--numGivens]);
         }
+    }
 
-        if (minCol.getColSum() == 0) {
-            // Not possible to satisfy constraint
-            return false;
-        }
+    private int performCalcs(SudokuGrid grid, int limit) {
+        /*
+         * Algorithm works almost exactly the same as algorithm X. The search is
+         * kept on explicit stacks rather than recursion, each level holding its
+         * covered column and the row node selected from it, or the column header
+         * itself before its first row. Solutions short of the limit are counted
+         * and then backtracked out of like a dead end
+         */
+        int depth = 0;
+        int numSolutions = 0;
+
+        while (true) {
+            int minCol = matrix.findMinCol();
+
+            if (minCol == DancingLinksMatrix.ROOT) {
+                // All constraints have been satisfied
+                if (++numSolutions == 1) {
+                    for (int level = 0; level < depth; level++) {
+                        solutionRows[level] = matrix.getRowId(nodeStack[level]);
+                    }
+
+                    numSolutionRows = depth;
+                }
 
-        Node activeConstraint = minCol.getBelow();
+                if (numSolutions == limit) {
+                    break;
+                }
+            } else if (matrix.getColSum(minCol) != 0) {
+                matrix.cover(minCol);
 
-        while (activeConstraint instanceof Constraint) {
-            Constraint constraint = (Constraint) activeConstraint;
+                colStack[depth] = minCol;
+                nodeStack[depth] = minCol;
+                depth++;
 
-            int gridRow = constraint.getGridRow(gridDimensions);
-            int gridCol = constraint.getGridCol(gridDimensions);
-            int gridDigit = constraint.getGridDigit(gridDimensions);
+                if (stats != null) {
+                    stats.enterNode();
+                    stats.cover(1);
+                }
+            }
 
-            grid.setCell(gridRow, gridCol, gridDigit);
+            // Select the next row of the deepest level, leaving levels that have run out
+            boolean selected = false;
 
-            removeConstraintsByRow(constraint.getMatrixRow());
+            while (depth > 0 && !selected) {
+                int level = depth - 1;
+                int node = nodeStack[level];
 
-            if (performCalcs(grid)) {
-                return true;
-            } else {
-                resetConstraintsByRow(constraint.getMatrixRow());
-                grid.setCell(gridRow, gridCol, -1);
-            }
+                if (node != colStack[level]) {
+                    matrix.uncoverRowColumns(node);
+                    setRowCell(grid, matrix.getRowId(node), -1);
 
-            activeConstraint = activeConstraint.getBelow();
-        }
+                    if (stats != null) {
+                        stats.uncover(3);
+                        stats.backtrack();
+                    }
+                }
 
-        return false;
-    }
+                node = matrix.getBelow(node);
+
+                if (node == colStack[level]) {
+                    matrix.uncover(node);
+
+                    if (stats != null) {
+                        stats.uncover(1);
+                        stats.exitNode();
+                    }
+
+                    depth--;
+                } else {
+                    nodeStack[level] = node;
 
-    private matrixCol findMinCol() {
-        matrixCol minCol = null;
-        matrixCol activeCol;
+                    setRowCell(grid, matrix.getRowId(node), matrix.getRowId(node) % gridDimensions);
+                    matrix.coverRowColumns(node);
 
-        for (int col = 0; col < colHeaders.length; col++) {
-            activeCol = colHeaders[col];
+                    if (stats != null) {
+                        // Each row covers the three columns besides minCol
+                        stats.cover(3);
+                    }
 
-            if (activeCol.isActive()) {
-                if (minCol == null || activeCol.getColSum() < minCol.getColSum()) {
-                    minCol = activeCol;
+                    selected = true;
                 }
             }
+
+            if (!selected) {
+                break;
+            }
         }
 
-        return minCol;
-    }
+        // Always uncover, the solution stays in the grid
+        while (depth > 0) {
+            depth--;
 
-    private void removeConstraintsByRow(int rowNum) {
-        matrixCol cellConstraint = colHeaders[cellConstraintByRow(rowNum)];
-        matrixCol rowConstraint = colHeaders[rowConstraintByRow(rowNum)];
-        matrixCol colConstraint = colHeaders[colConstraintByRow(rowNum)];
-        matrixCol boxConstraint = colHeaders[boxConstraintByRow(rowNum)];
-
-        cellConstraint.setStatus(false);
-        rowConstraint.setStatus(false);
-        colConstraint.setStatus(false);
-        boxConstraint.setStatus(false);
-
-        removeConstraintsByCol(cellConstraint);
-        removeConstraintsByCol(rowConstraint);
-        removeConstraintsByCol(colConstraint);
-        removeConstraintsByCol(boxConstraint);
+            matrix.uncoverRowColumns(nodeStack[depth]);
+            matrix.uncover(colStack[depth]);
+
+            if (stats != null) {
+                stats.uncover(4);
+            }
+        }
+
+        return numSolutions;
     }
 
-    private void resetConstraintsByRow(int rowNum) {
-        matrixCol cellConstraint = colHeaders[cellConstraintByRow(rowNum)];
-        matrixCol rowConstraint = colHeaders[rowConstraintByRow(rowNum)];
-        matrixCol colConstraint = colHeaders[colConstraintByRow(rowNum)];
-        matrixCol boxConstraint = colHeaders[boxConstraintByRow(rowNum)];
-
-        cellConstraint.setStatus(true);
-        rowConstraint.setStatus(true);
-        colConstraint.setStatus(true);
-        boxConstraint.setStatus(true);
-
-        resetConstraintsByCol(cellConstraint);
-        resetConstraintsByCol(rowConstraint);
-        resetConstraintsByCol(colConstraint);
-        resetConstraintsByCol(boxConstraint);
+    private void setRowCell(SudokuGrid grid, int matrixRow, int digit) {
+        // Set the cell of a matrix row to a digit position, or -1 to clear it
+        grid.setCell(matrixRow / (gridDimensions * gridDimensions), (matrixRow / gridDimensions) % gridDimensions,
+                digit);
     }
 
-    private void removeConstraintsByCol(matrixCol colHeader) {
-        Node activeConstraint = colHeader.getBelow();
+    private boolean performParallelCalcs(SudokuGrid grid) {
+        /*
+         * Search subtrees in parallel, each on its own copy of the matrix so the
+         * shared matrix is left untouched, then fill the grid from the first
+         * solution found
+         */
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
 
-        while (activeConstraint instanceof Constraint) {
-            Node tempConstraint = activeConstraint.getRight();
+        parallelSolution.set(null);
 
-            while (tempConstraint != activeConstraint) {
-                tempConstraint.detachNode();
+        pool.invoke(new SubtreeTask(new DancingLinksMatrix(matrix), -1, new int[0], 0));
 
-                decrementColumnOfConstraint(tempConstraint);
+        int[] solutionRows = parallelSolution.get();
 
-                tempConstraint = tempConstraint.getRight();
-            }
+        if (solutionRows == null) {
+            return false;
+        }
 
-            activeConstraint = activeConstraint.getBelow();
+        for (int matrixRow : solutionRows) {
+            grid.setCell(matrixRow / (gridDimensions * gridDimensions), (matrixRow / gridDimensions) % gridDimensions,
+                    matrixRow % gridDimensions);
         }
-    }
 
-    private void resetConstraintsByCol(matrixCol colHeader) {
-        Node activeConstraint = colHeader.getBelow();
+        return true;
+    }
 
-        while (activeConstraint instanceof Constraint) {
-            Node tempConstraint = activeConstraint.getRight();
+    private boolean searchSubtree(DancingLinksMatrix subMatrix, int[] path, int depth, SolverStats taskStats) {
+        /*
+         * Sequential search of one subtree, recording chosen rows in path from
+         * depth on. Like performCalcs() the search is kept on explicit stacks, here
+         * allocated per subtree as subtrees run on several threads. Gives up as
+         * soon as any subtree has found a solution. Statistics go to the task's
+         * own taskStats, if enabled
+         */
+        int[] colStack = new int[path.length];
+        int[] nodeStack = new int[path.length];
+        int levels = 0;
+        boolean solved = false;
+
+        while (parallelSolution.get() == null) {
+            int minCol = subMatrix.findMinCol();
+
+            if (minCol == DancingLinksMatrix.ROOT) {
+                solved = parallelSolution.compareAndSet(null, Arrays.copyOf(path, depth + levels));
+                break;
+            }
 
-            while (tempConstraint != activeConstraint) {
-                tempConstraint.reattachNode();
+            if (subMatrix.getColSum(minCol) != 0) {
+                subMatrix.cover(minCol);
 
-                incrementColumnOfConstraint(tempConstraint);
+                colStack[levels] = minCol;
+                nodeStack[levels] = minCol;
+                levels++;
 
-                tempConstraint = tempConstraint.getRight();
+                if (taskStats != null) {
+                    taskStats.enterNode();
+                    taskStats.cover(1);
+                }
             }
 
-            activeConstraint = activeConstraint.getBelow();
-        }
-    }
+            // Select the next row of the deepest level, leaving levels that have run out
+            boolean selected = false;
 
-    private void decrementColumnOfConstraint(Node node) {
-        while (node instanceof Constraint) {
-            node = node.getAbove();
-        }
+            while (levels > 0 && !selected) {
+                int level = levels - 1;
+                int node = nodeStack[level];
 
-        matrixCol colHeader = (matrixCol) node;
+                if (node != colStack[level]) {
+                    subMatrix.uncoverRowColumns(node);
 
-        colHeader.decreaseColSum();
-    }
+                    if (taskStats != null) {
+                        taskStats.uncover(3);
+                        taskStats.backtrack();
+                    }
+                }
+
+                node = subMatrix.getBelow(node);
+
+                if (node == colStack[level]) {
+                    subMatrix.uncover(node);
+                    levels--;
 
-    private void incrementColumnOfConstraint(Node node) {
-        while (node instanceof Constraint) {
-            node = node.getAbove();
+                    if (taskStats != null) {
+                        taskStats.uncover(1);
+                        taskStats.exitNode();
+                    }
+                } else {
+                    nodeStack[level] = node;
+                    path[depth + level] = subMatrix.getRowId(node);
+
+                    subMatrix.coverRowColumns(node);
+                    selected = true;
+
+                    if (taskStats != null) {
+                        taskStats.cover(3);
+                    }
+                }
+            }
+
+            if (!selected) {
+                break;
+            }
         }
 
-        matrixCol colHeader = (matrixCol) node;
+        // Leave the matrix as it was given, even when stopping early
+        while (levels > 0) {
+            levels--;
 
-        colHeader.incrementColSum();
-    }
+            subMatrix.uncoverRowColumns(nodeStack[levels]);
+            subMatrix.uncover(colStack[levels]);
 
-    private int cellConstraintByRow(int rowNum) {
-        return Math.floorDiv(rowNum, gridDimensions);
-    }
+            if (taskStats != null) {
+                taskStats.uncover(4);
+            }
+        }
 
-    private int rowConstraintByRow(int rowNum) {
-        return (gridDimensions * gridDimensions)
-                + gridDimensions * Math.floorDiv(rowNum, gridDimensions * gridDimensions) + rowNum % gridDimensions;
+        return solved;
     }
 
-    private int colConstraintByRow(int rowNum) {
-        return 2 * gridDimensions * gridDimensions + rowNum % (gridDimensions * gridDimensions);
-    }
+    private class SubtreeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
 
-    private int boxConstraintByRow(int rowNum) {
-        final double EPS = 0.5; // to account for division errors with double
+        // Matrix of the parent task, left unchanged while its branches run
+        private DancingLinksMatrix parentMatrix;
+        // Row node selected by this branch, or -1 to search parentMatrix itself
+        private int branchNode;
+        private int[] path;
+        private int splitLevel;
 
-        double offset = Math.pow(gridDimensions, 1.5)
-                * Math.floor(((double) rowNum + EPS) / Math.pow(gridDimensions, 2.5))
-                + gridDimensions * Math.floor(
-                        (double) (rowNum % (gridDimensions * gridDimensions) + EPS) / Math.pow(gridDimensions, 1.5))
-                + rowNum % gridDimensions;
+        public SubtreeTask(DancingLinksMatrix parentMatrix, int branchNode, int[] path, int splitLevel) {
+            this.parentMatrix = parentMatrix;
+            this.branchNode = branchNode;
+            this.path = path;
+            this.splitLevel = splitLevel;
+        }
 
-        return 3 * gridDimensions * gridDimensions + (int) offset;
-    }
+        @Override
+        protected void compute() {
+            if (parallelSolution.get() != null) {
+                return;
+            }
 
-    private abstract class Node {
-        protected Node right;
+            // Recorded apart from the other tasks, then added to the solver's statistics
+            SolverStats taskStats = null;
 
-        protected Node above;
-        protected Node below;
+            if (stats != null) {
+                taskStats = new SolverStats();
+                taskStats.setDepth(path.length);
+            }
 
-        public Node() {
-            this.right = this;
+            search(taskStats);
 
-            this.above = this;
-            this.below = this;
+            if (taskStats != null) {
+                stats.add(taskStats);
+            }
         }
 
-        public void detachNode() {
-            this.above.setBelow(this.below);
-            this.below.setAbove(this.above);
-        }
+        private void search(SolverStats taskStats) {
+            /*
+             * Copy the parent matrix only once the task runs, so queued branches
+             * don't each hold a copy
+             */
+            DancingLinksMatrix subMatrix = parentMatrix;
 
-        public void reattachNode() {
-            this.above.setBelow(this);
-            this.below.setAbove(this);
-        }
+            if (branchNode != -1) {
+                subMatrix = new DancingLinksMatrix(parentMatrix);
+                subMatrix.coverRowColumns(branchNode);
 
-        public Node getRight() {
-            return this.right;
-        }
+                if (taskStats != null) {
+                    taskStats.cover(3);
+                }
+            }
 
-        public Node getAbove() {
-            return this.above;
-        }
+            int[] fullPath = Arrays.copyOf(path, gridDimensions * gridDimensions);
+            int depth = path.length;
 
-        public Node getBelow() {
-            return this.below;
-        }
+            if (splitLevel == SPLIT_DEPTH) {
+                searchSubtree(subMatrix, fullPath, depth, taskStats);
+                return;
+            }
 
-        public void setRight(Node node) {
-            this.right = node;
-        }
+            int minCol = subMatrix.findMinCol();
 
-        public void setAbove(Node node) {
-            this.above = node;
-        }
+            // Forced choices aren't worth a task, so follow them in place
+            while (minCol != DancingLinksMatrix.ROOT && subMatrix.getColSum(minCol) == 1) {
+                int node = subMatrix.getBelow(minCol);
 
-        public void setBelow(Node node) {
-            this.below = node;
-        }
-    }
+                fullPath[depth++] = subMatrix.getRowId(node);
 
-    private class matrixCol extends Node {
-        private int colSum;
-        private boolean isActive;
+                subMatrix.cover(minCol);
+                subMatrix.coverRowColumns(node);
 
-        public matrixCol(int dimensions) {
-            this.colSum = dimensions;
-            this.isActive = true;
-        }
+                if (taskStats != null) {
+                    taskStats.enterNode();
+                    taskStats.cover(4);
+                }
 
-        public int getColSum() {
-            return this.colSum;
-        }
+                minCol = subMatrix.findMinCol();
+            }
 
-        public void decreaseColSum() {
-            this.colSum--;
-        }
+            if (minCol == DancingLinksMatrix.ROOT) {
+                parallelSolution.compareAndSet(null, Arrays.copyOf(fullPath, depth));
+                return;
+            }
 
-        public void incrementColSum() {
-            this.colSum++;
-        }
+            if (subMatrix.getColSum(minCol) == 0) {
+                return;
+            }
 
-        public void addVertical(Node node) {
-            node.setAbove(this);
-            node.setBelow(this.below);
+            subMatrix.cover(minCol);
 
-            this.below.setAbove(node);
-            this.below = node;
-        }
+            if (taskStats != null) {
+                taskStats.enterNode();
+                taskStats.cover(1);
+            }
 
-        public void setStatus(boolean newStatus) {
-            this.isActive = newStatus;
-        }
+            // Each branch searches its own copy of the matrix with that row applied
+            List<SubtreeTask> branches = new ArrayList<SubtreeTask>();
+
+            for (int node = subMatrix.getBelow(minCol); node != minCol; node = subMatrix.getBelow(node)) {
+                int[] branchPath = Arrays.copyOf(fullPath, depth + 1);
+                branchPath[depth] = subMatrix.getRowId(node);
 
-        public boolean isActive() {
-            return this.isActive;
+                branches.add(new SubtreeTask(subMatrix, node, branchPath, splitLevel + 1));
+            }
+
+            invokeAll(branches);
         }
     }
 
-    private class Constraint extends Node {
-        private int rowNum;
-
-        public Constraint(int rowNum) {
-            super();
+    private int cellConstraintByRow(int rowNum) {
+        return rowNum / gridDimensions;
+    }
 
-            this.rowNum = rowNum;
-        }
+    private int rowConstraintByRow(int rowNum) {
+        return (gridDimensions * gridDimensions) + gridDimensions * (rowNum / (gridDimensions * gridDimensions))
+                + rowNum % gridDimensions;
+    }
 
-        public int getGridRow(int gridDimensions) {
-            return Math.floorDiv(this.rowNum, gridDimensions * gridDimensions);
-        }
+    private int colConstraintByRow(int rowNum) {
+        return 2 * gridDimensions * gridDimensions + rowNum % (gridDimensions * gridDimensions);
+    }
 
-        public int getGridCol(int gridDimensions) {
-            return Math.floorDiv(this.rowNum % (gridDimensions * gridDimensions), gridDimensions);
-        }
+    private int boxConstraintByRow(int rowNum) {
+        int boxSize = (int) Math.sqrt(gridDimensions);
 
-        public int getGridDigit(int gridDimensions) {
-            return this.rowNum % gridDimensions;
-        }
+        int gridRow = rowNum / (gridDimensions * gridDimensions);
+        int gridCol = (rowNum / gridDimensions) % gridDimensions;
+        int box = (gridRow / boxSize) * boxSize + gridCol / boxSize;
 
-        public int getMatrixRow() {
-            return this.rowNum;
-        }
+        return 3 * gridDimensions * gridDimensions + gridDimensions * box + rowNum % gridDimensions;
     }
-} // end of class DancingLinksSolver
\ No newline at end of file
+} // end of class DancingLinksSolver
@@ -0,0 +1,429 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * Implemented by Dylan Pleiter (s3252987)
+ */
+
+package solver;
+
+import java.util.*;
+import grid.CageCombinations;
+import grid.KillerSudokuGrid;
+
+/**
+ * Narrows the digits each cell of a Killer Sudoku can take before a search
+ * starts, using the rule that every row, column and box adds up to the sum
+ * of all the digits.
+ *
+ * For a region made of whole rows, columns or a box, the cages lying inside
+ * it are subtracted from the region's total. What is left is the sum of the
+ * innies, the region's cells whose cages stick out of it. The cells those
+ * cages have outside the region, the outies, make up the rest of the cages'
+ * sums. Innies and outies become virtual cages alongside the real cages and
+ * houses. Every such sum constraint is then used to cut digits out of its
+ * cells' candidates, until nothing more changes.
+ */
+public class HouseSumPreprocessor {
+    private KillerSudokuGrid grid;
+    private CageCombinations combinations;
+    private int gridDimensions;
+    private int boxSize;
+    private long allDigits;
+
+    // Value of each digit position, and the sum of all of them
+    private int[] values;
+    private int digitTotal;
+
+    // Candidate digit positions of each cell, at row * gridDimensions + col
+    private long[] cellMasks;
+
+    private ArrayList<SumConstraint> constraints;
+
+    public HouseSumPreprocessor() {
+        // No constructor needed
+    } // end of HouseSumPreprocessor()
+
+    /**
+     * @param grid Grid to work out the candidates of. Filled cells keep their
+     *             digit.
+     *
+     * @return Bitmask of candidate digit positions for each cell, at
+     *         row * size + col, or null if some cell is left with none, in which
+     *         case the grid has no solution.
+     */
+    public long[] restrict(KillerSudokuGrid grid) {
+        this.grid = grid;
+
+        gridDimensions = grid.getSize();
+        boxSize = (int) Math.sqrt(gridDimensions);
+        combinations = grid.getCombinations();
+        allDigits = (1L << gridDimensions) - 1;
+
+        values = new int[gridDimensions];
+        digitTotal = 0;
+
+        for (int position = 0; position < gridDimensions; position++) {
+            values[position] = grid.getDigits().get(position);
+            digitTotal += values[position];
+        }
+
+        initCellMasks();
+
+        constraints = new ArrayList<SumConstraint>();
+
+        for (KillerSudokuGrid.Cage cage : grid.getCages()) {
+            int[] cells = new int[cage.getCells().size()];
+
+            for (int i = 0; i < cells.length; i++) {
+                KillerSudokuGrid.Cell cell = cage.getCells().get(i);
+
+                cells[i] = cell.getRow() * gridDimensions + cell.getCol();
+            }
+
+            constraints.add(new SumConstraint(cells, cage.getTargetValue(), true));
+        }
+
+        if (!addRegionConstraints()) {
+            return null;
+        }
+
+        return propagate() ? cellMasks : null;
+    } // end of restrict()
+
+    private void initCellMasks() {
+        // Filled cells are fixed, the rest start with their cage's possible digits
+        cellMasks = new long[gridDimensions * gridDimensions];
+
+        for (int row = 0; row < gridDimensions; row++) {
+            for (int col = 0; col < gridDimensions; col++) {
+                int cellValue = grid.getCellValue(row, col);
+
+                if (cellValue != 0) {
+                    cellMasks[row * gridDimensions + col] = 1L << grid.getDigitPosition(cellValue);
+                } else {
+                    cellMasks[row * gridDimensions + col] = allDigits & grid.getCage(row, col).getPossibleMask();
+                }
+            }
+        }
+    }
+
+    private boolean addRegionConstraints() {
+        /*
+         * Add every house as a constraint, then the innies and outies of each box
+         * and of each run of 1 to gridDimensions - 1 adjacent rows or columns.
+         * Returns false if the cage sums can't fit some region
+         */
+        boolean[] inRegion = new boolean[gridDimensions * gridDimensions];
+
+        for (int house = 0; house < gridDimensions; house++) {
+            constraints.add(new SumConstraint(houseCells(house, 0), digitTotal, true));
+            constraints.add(new SumConstraint(houseCells(house, 1), digitTotal, true));
+            constraints.add(new SumConstraint(houseCells(house, 2), digitTotal, true));
+        }
+
+        for (int box = 0; box < gridDimensions; box++) {
+            Arrays.fill(inRegion, false);
+
+            for (int cell : houseCells(box, 2)) {
+                inRegion[cell] = true;
+            }
+
+            if (!addInniesAndOuties(inRegion, digitTotal)) {
+                return false;
+            }
+        }
+
+        for (int numLines = 1; numLines < gridDimensions; numLines++) {
+            for (int first = 0; first + numLines <= gridDimensions; first++) {
+                for (int type = 0; type < 2; type++) {
+                    Arrays.fill(inRegion, false);
+
+                    for (int line = first; line < first + numLines; line++) {
+                        for (int cell : houseCells(line, type)) {
+                            inRegion[cell] = true;
+                        }
+                    }
+
+                    if (!addInniesAndOuties(inRegion, numLines * digitTotal)) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private boolean addInniesAndOuties(boolean[] inRegion, int regionTotal) {
+        /*
+         * Cages wholly inside the region take their sum out of the region total,
+         * leaving the sum of the innies. Cages partly inside add up to the innies
+         * and outies together, which gives the sum of the outies
+         */
+        int insideSum = 0;
+        int partialSum = 0;
+
+        ArrayList<Integer> innies = new ArrayList<Integer>();
+        ArrayList<Integer> outies = new ArrayList<Integer>();
+
+        for (KillerSudokuGrid.Cage cage : grid.getCages()) {
+            int numInside = 0;
+
+            for (KillerSudokuGrid.Cell cell : cage.getCells()) {
+                if (inRegion[cell.getRow() * gridDimensions + cell.getCol()]) {
+                    numInside++;
+                }
+            }
+
+            if (numInside == cage.getCells().size()) {
+                insideSum += cage.getTargetValue();
+            } else if (numInside > 0) {
+                partialSum += cage.getTargetValue();
+
+                for (KillerSudokuGrid.Cell cell : cage.getCells()) {
+                    int cellIndex = cell.getRow() * gridDimensions + cell.getCol();
+
+                    if (inRegion[cellIndex]) {
+                        innies.add(cellIndex);
+                    } else {
+                        outies.add(cellIndex);
+                    }
+                }
+            }
+        }
+
+        int innieSum = regionTotal - insideSum;
+
+        if (innies.isEmpty()) {
+            return innieSum == 0;
+        }
+
+        // Every partial cage has a cell outside the region, so there are outies too
+        addVirtualCage(innies, innieSum);
+        addVirtualCage(outies, partialSum - innieSum);
+
+        return true;
+    }
+
+    private void addVirtualCage(ArrayList<Integer> cellList, int sum) {
+        // Cells can only be assumed to hold distinct digits if they share a house
+        int[] cells = new int[cellList.size()];
+
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = cellList.get(i);
+        }
+
+        boolean sameRow = true;
+        boolean sameCol = true;
+        boolean sameBox = true;
+
+        for (int cell : cells) {
+            sameRow &= cell / gridDimensions == cells[0] / gridDimensions;
+            sameCol &= cell % gridDimensions == cells[0] % gridDimensions;
+            sameBox &= boxIndex(cell) == boxIndex(cells[0]);
+        }
+
+        constraints.add(new SumConstraint(cells, sum, sameRow || sameCol || sameBox));
+    }
+
+    private boolean propagate() {
+        /*
+         * Apply every constraint in turn, and remove the digit of each fixed cell
+         * from its row, column and box, until a full pass changes nothing
+         */
+        boolean[] eliminated = new boolean[gridDimensions * gridDimensions];
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+
+            for (SumConstraint constraint : constraints) {
+                int result = applyConstraint(constraint);
+
+                if (result == -1) {
+                    return false;
+                }
+
+                changed |= result == 1;
+            }
+
+            for (int cell = 0; cell < cellMasks.length; cell++) {
+                if (eliminated[cell] || Long.bitCount(cellMasks[cell]) != 1)
+                    continue;
+
+                eliminated[cell] = true;
+
+                int result = eliminatePeers(cell);
+
+                if (result == -1) {
+                    return false;
+                }
+
+                changed |= result == 1;
+            }
+        }
+
+        return true;
+    }
+
+    private int applyConstraint(SumConstraint constraint) {
+        /*
+         * Cut each cell of the constraint down to the digits that let the other
+         * cells still reach the sum, using their smallest and largest candidates.
+         * Distinct cells are also limited to digits in some combination of
+         * distinct digits adding up to the sum. Returns 1 if any candidates were
+         * removed, 0 if none were and -1 if a cell has none left
+         */
+        int[] cells = constraint.cells;
+        int minTotal = 0;
+        int maxTotal = 0;
+        long union = 0;
+
+        for (int cell : cells) {
+            minTotal += minValue(cellMasks[cell]);
+            maxTotal += maxValue(cellMasks[cell]);
+            union |= cellMasks[cell];
+        }
+
+        if (constraint.sum < minTotal || constraint.sum > maxTotal) {
+            return -1;
+        }
+
+        long feasible = allDigits;
+
+        if (constraint.distinct) {
+            feasible = combinations.getPossibleDigits(constraint.sum, cells.length, allDigits & ~union);
+
+            if (feasible == 0) {
+                return -1;
+            }
+        }
+
+        int result = 0;
+
+        for (int cell : cells) {
+            long mask = cellMasks[cell];
+            int low = constraint.sum - (maxTotal - maxValue(mask));
+            int high = constraint.sum - (minTotal - minValue(mask));
+
+            long newMask = mask & feasible & valuesBetween(low, high);
+
+            if (constraint.distinct) {
+                // Digits fixed in the other cells can't be used again
+                for (int other : cells) {
+                    if (other != cell && Long.bitCount(cellMasks[other]) == 1) {
+                        newMask &= ~cellMasks[other];
+                    }
+                }
+            }
+
+            if (newMask == 0) {
+                return -1;
+            }
+
+            if (newMask != mask) {
+                cellMasks[cell] = newMask;
+                result = 1;
+            }
+        }
+
+        return result;
+    }
+
+    private int eliminatePeers(int cell) {
+        // Remove a fixed cell's digit from the rest of its row, column and box
+        int row = cell / gridDimensions;
+        int col = cell % gridDimensions;
+        int box = boxIndex(cell);
+        long digitBit = cellMasks[cell];
+
+        int result = 0;
+
+        for (int type = 0; type < 3; type++) {
+            for (int peer : houseCells(type == 0 ? row : type == 1 ? col : box, type)) {
+                if (peer == cell || (cellMasks[peer] & digitBit) == 0)
+                    continue;
+
+                cellMasks[peer] &= ~digitBit;
+
+                if (cellMasks[peer] == 0) {
+                    return -1;
+                }
+
+                result = 1;
+            }
+        }
+
+        return result;
+    }
+
+    private int[] houseCells(int house, int type) {
+        // Cells of row, column or box number house, for a type of 0, 1 or 2
+        int[] cells = new int[gridDimensions];
+
+        for (int i = 0; i < gridDimensions; i++) {
+            if (type == 0) {
+                cells[i] = house * gridDimensions + i;
+            } else if (type == 1) {
+                cells[i] = i * gridDimensions + house;
+            } else {
+                int row = (house / boxSize) * boxSize + i / boxSize;
+                int col = (house % boxSize) * boxSize + i % boxSize;
+
+                cells[i] = row * gridDimensions + col;
+            }
+        }
+
+        return cells;
+    }
+
+    private long valuesBetween(int low, int high) {
+        long mask = 0;
+
+        for (int position = 0; position < gridDimensions; position++) {
+            if (values[position] >= low && values[position] <= high) {
+                mask |= 1L << position;
+            }
+        }
+
+        return mask;
+    }
+
+    private int minValue(long mask) {
+        int min = Integer.MAX_VALUE;
+
+        for (long digits = mask; digits != 0; digits &= digits - 1) {
+            min = Math.min(min, values[Long.numberOfTrailingZeros(digits)]);
+        }
+
+        return min;
+    }
+
+    private int maxValue(long mask) {
+        int max = Integer.MIN_VALUE;
+
+        for (long digits = mask; digits != 0; digits &= digits - 1) {
+            max = Math.max(max, values[Long.numberOfTrailingZeros(digits)]);
+        }
+
+        return max;
+    }
+
+    private int boxIndex(int cell) {
+        return (cell / gridDimensions / boxSize) * boxSize + (cell % gridDimensions) / boxSize;
+    }
+
+    // PRIVATE CLASSES
+    private class SumConstraint {
+        private int[] cells;
+        private int sum;
+
+        // True if the cells must hold different digits
+        private boolean distinct;
+
+        public SumConstraint(int[] cells, int sum, boolean distinct) {
+            this.cells = cells;
+            this.sum = sum;
+            this.distinct = distinct;
+        }
+    }
+} // end of class HouseSumPreprocessor
@@ -5,6 +5,7 @@
 
 package solver;
 
+import java.util.Arrays;
 import grid.KillerSudokuGrid;
 import grid.SudokuGrid;
 
@@ -12,32 +13,100 @@ public class KillerAdvancedSolver extends KillerSudokuSolver {
     private MatrixCol[] colHeaders;
     private MatrixRow[] rowHeaders;
 
+    // Sentinel of the circular list of active column headers
+    private MatrixCol activeCols;
+
     private KillerSudokuGrid grid;
     private int gridDimensions;
 
+    // Works out each cell's digits from the cage and house sums before searching
+    private HouseSumPreprocessor preprocessor = new HouseSumPreprocessor();
+
+    // Matrix rows detached by the initial cage restrictions of the current puzzle
+    private int[] cageLockedRows;
+    private int numCageLocked;
+
+    // Matrix rows detached by cage updates, or ~rowNum for rows reattached, undone in reverse order
+    private int[] cageTrail;
+    private int cageTrailSize;
+
+    // Possible mask of the cage and cage trail size before each selected row
+    private long[] selectedMasks;
+    private int[] selectedMarks;
+    private int numSelected;
+
+    // Digit positions of the solution, captured before the search unwinds
+    private int[] solution;
+
+    // Search stacks, the column satisfied and constraint node selected at each level
+    private MatrixCol[] colStack;
+    private Constraint[] constraintStack;
+
     public KillerAdvancedSolver() {
         // No constructor needed
     } // end of KillerAdvancedSolver()
 
     @Override
     public boolean solve(SudokuGrid grid) {
+        // Stop at the first solution
+        return countSolutions(grid, 1) > 0;
+    }
+
+    /**
+     * Count the solutions of a grid, stopping once limit have been found. A
+     * limit of 2 checks that a puzzle has a unique solution, giving up as soon
+     * as a second one turns up.
+     *
+     * @param grid Killer grid to count the solutions of. If it has any, it is
+     *             left holding the first one found.
+     * @param limit Most solutions to look for, at least 1.
+     *
+     * @return Number of solutions, at most limit.
+     */
+    public int countSolutions(SudokuGrid grid, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Solution limit must be at least 1");
+        }
+
+        /*
+         * The empty constraint matrix only depends on the grid size, so it is kept
+         * between calls. Each puzzle applies its cage restrictions, searches, then
+         * undoes them to leave the matrix ready for the next puzzle
+         */
         this.grid = (KillerSudokuGrid) grid;
-        gridDimensions = grid.getSize();
 
-        initMatrix(this.grid);
+        if (colHeaders == null || gridDimensions != grid.getSize()) {
+            gridDimensions = grid.getSize();
+            initMatrix();
+        }
 
-        return performCalcs();
-    }
+        resetStats();
+        int numSolutions = applyCageRestrictions(this.grid) ? performCalcs(limit) : 0;
+
+        removeCageRestrictions();
+
+        if (numSolutions > 0) {
+            // The search unwinds fully, so write the captured solution back
+            for (int i = 0; i < solution.length; i++) {
+                grid.setCell(i / gridDimensions, i % gridDimensions, solution[i]);
+            }
+        }
+
+        return numSolutions;
+    } // end of countSolutions()
 
-    private void initMatrix(KillerSudokuGrid grid) {
+    private void initMatrix() {
         int matrixRows = gridDimensions * gridDimensions * gridDimensions;
         int matrixCols = 4 * gridDimensions * gridDimensions;
 
         colHeaders = new MatrixCol[matrixCols];
         rowHeaders = new MatrixRow[matrixRows];
 
+        activeCols = new MatrixCol(0);
+
         for (int col = 0; col < matrixCols; col++) {
             colHeaders[col] = new MatrixCol(gridDimensions);
+            colHeaders[col].linkBefore(activeCols);
         }
 
         for (int row = 0; row < matrixRows; row++) {
@@ -66,89 +135,186 @@ public class KillerAdvancedSolver extends KillerSudokuSolver {
             colHeaders[boxCol].addVertical(boxConstraint);
         }
 
-        // Remove rows that for digits that can't occupy cells in particular cages
-        for (KillerSudokuGrid.Cage cage : grid.getCages()) {
-            for (int digit : grid.getDigits()) {
-                if (!cage.getPossibleDigits().contains(digit)) {
-                    // remove row
-                    for (KillerSudokuGrid.Cell cell : cage.getCells()) {
-                        int xRowNum = cell.getRow() * gridDimensions * gridDimensions + cell.getCol() * gridDimensions
-                                + grid.getDigitPosition(digit);
+        cageLockedRows = new int[matrixRows];
+        cageTrail = new int[matrixRows];
+        cageTrailSize = 0;
 
-                        MatrixRow xRow = rowHeaders[xRowNum];
+        selectedMasks = new long[gridDimensions * gridDimensions];
+        selectedMarks = new int[gridDimensions * gridDimensions];
+        numSelected = 0;
+        solution = new int[gridDimensions * gridDimensions];
 
-                        Constraint constraint = (Constraint) xRow.getRight();
+        colStack = new MatrixCol[gridDimensions * gridDimensions];
+        constraintStack = new Constraint[gridDimensions * gridDimensions];
+    }
 
-                        for (int i = 0; i < 4; i++) {
-                            constraint.detachNode();
+    private boolean applyCageRestrictions(KillerSudokuGrid grid) {
+        /*
+         * Remove the rows of digits that can't occupy cells, going by the cage and
+         * house sums. Returns false if the sums already rule out every digit of
+         * some cell
+         */
+        numCageLocked = 0;
 
-                            constraint = (Constraint) constraint.getRight();
-                        }
+        long[] cellMasks = preprocessor.restrict(grid);
 
-                        xRow.setCageLock(true);
-                    }
-                }
-            }
+        if (cellMasks == null) {
+            return false;
         }
-    }
 
-    private boolean performCalcs() {
-        // Recursive part of the algorithm
-        MatrixCol minCol = findMinCol();
+        for (int cell = 0; cell < cellMasks.length; cell++) {
+            for (int position = 0; position < gridDimensions; position++) {
+                if ((cellMasks[cell] & (1L << position)) == 0) {
+                    // remove row
+                    int xRowNum = cell * gridDimensions + position;
 
-        if (minCol == null) {
-            return true;
+                    detachRow(rowHeaders[xRowNum]);
+                    cageLockedRows[numCageLocked++] = xRowNum;
+                }
+            }
         }
 
-        if (minCol.getColSum() == 0) {
-            return false;
+        return true;
+    }
+
+    private void removeCageRestrictions() {
+        // Reattach in reverse order so every link is restored exactly
+        while (numCageLocked > 0) {
+            attachRow(rowHeaders[cageLockedRows[--numCageLocked]]);
         }
+    }
 
-        Constraint activeConstraint = (Constraint) minCol.getBelow();
+    private int performCalcs(int limit) {
+        /*
+         * Depth first search kept on explicit stacks rather than recursion. Each
+         * level holds the column being satisfied and the constraint node of the
+         * row selected for it, or null before its first row. Solutions short of
+         * the limit are counted and then backtracked out of like a dead end
+         */
+        int depth = 0;
+        int numSolutions = 0;
 
         while (true) {
-            MatrixRow constraintRow = activeConstraint.getRowHeader();
+            MatrixCol minCol = findMinCol();
+
+            if (minCol == null) {
+                if (++numSolutions == 1) {
+                    // Capture the solution, as the grid is cleared while the search unwinds
+                    for (int i = 0; i < solution.length; i++) {
+                        int value = grid.getCellValue(i / gridDimensions, i % gridDimensions);
+
+                        solution[i] = grid.getDigitPosition(value);
+                    }
+                }
 
-            int gridRow = constraintRow.getGridRow(gridDimensions);
-            int gridCol = constraintRow.getGridCol(gridDimensions);
-            int gridDigit = constraintRow.getGridDigit(gridDimensions);
+                if (numSolutions == limit) {
+                    break;
+                }
+            } else if (minCol.getColSum() != 0) {
+                colStack[depth] = minCol;
+                constraintStack[depth] = null;
+                depth++;
 
-            grid.setCell(gridRow, gridCol, gridDigit);
+                if (stats != null) {
+                    stats.enterNode();
+                }
+            }
 
-            // Remove rows based on cell, row, column, and box constraints
-            removeConstraintsByRow(constraintRow.getMatrixRowNum());
+            // Select the next row of the deepest level, leaving levels that have run out
+            boolean selected = false;
 
-            // Determine new digits that can occupy cage and update matrix accordingly
-            updateRowsByCage(this.grid.getCage(gridRow, gridCol));
+            while (depth > 0 && !selected) {
+                int level = depth - 1;
+                Node next = colStack[level].getBelow();
 
-            if (performCalcs()) {
-                return true;
-            } else {
-                grid.setCell(gridRow, gridCol, -1);
-                resetConstraintsByRow(constraintRow.getMatrixRowNum());
-                updateRowsByCage(this.grid.getCage(gridRow, gridCol));
+                if (constraintStack[level] != null) {
+                    unselectRow(constraintStack[level].getRowHeader());
+
+                    if (stats != null) {
+                        stats.backtrack();
+                    }
+
+                    next = constraintStack[level].getBelow();
+                }
+
+                if (next instanceof Constraint) {
+                    constraintStack[level] = (Constraint) next;
+                    selectRow(constraintStack[level].getRowHeader());
+
+                    selected = true;
+                } else {
+                    if (stats != null) {
+                        stats.exitNode();
+                    }
+
+                    depth--;
+                }
             }
 
-            if (activeConstraint.getBelow() instanceof Constraint) {
-                activeConstraint = (Constraint) activeConstraint.getBelow();
-            } else {
+            if (!selected) {
                 break;
             }
         }
 
-        return false;
+        // Always undo so the matrix can be reused
+        while (depth > 0) {
+            unselectRow(constraintStack[--depth].getRowHeader());
+        }
+
+        return numSolutions;
+    }
+
+    private void selectRow(MatrixRow constraintRow) {
+        int gridRow = constraintRow.getGridRow(gridDimensions);
+        int gridCol = constraintRow.getGridCol(gridDimensions);
+
+        grid.setCell(gridRow, gridCol, constraintRow.getGridDigit(gridDimensions));
+
+        // Remove rows based on cell, row, column, and box constraints
+        removeConstraintsByRow(constraintRow.getMatrixRowNum());
+
+        // Determine new digits that can occupy cage and update matrix accordingly
+        KillerSudokuGrid.Cage cage = grid.getCage(gridRow, gridCol);
+
+        selectedMasks[numSelected] = cage.getPossibleMask();
+        selectedMarks[numSelected++] = cageTrailSize;
+
+        updateRowsByCage(cage);
+    }
+
+    private void unselectRow(MatrixRow constraintRow) {
+        int gridRow = constraintRow.getGridRow(gridDimensions);
+        int gridCol = constraintRow.getGridCol(gridDimensions);
+
+        grid.setCell(gridRow, gridCol, -1);
+
+        /*
+         * Rows are selected and unselected in LIFO order, so the saved cage state is
+         * on top. Cage updates came after the constraint removals, so they are
+         * undone first to keep every column's links restored in reverse order
+         */
+        numSelected--;
+
+        undoCageUpdates(selectedMarks[numSelected]);
+        grid.getCage(gridRow, gridCol).setPossibleMask(selectedMasks[numSelected]);
+
+        resetConstraintsByRow(constraintRow.getMatrixRowNum());
     }
 
     private MatrixCol findMinCol() {
+        /*
+         * Only active columns are linked into the list. A column with 0 or 1 nodes
+         * can't be beaten, so stop as soon as one is found
+         */
         MatrixCol minCol = null;
-        MatrixCol activeCol;
 
-        for (int col = 0; col < colHeaders.length; col++) {
-            activeCol = colHeaders[col];
+        for (MatrixCol activeCol = activeCols.getNextActive(); activeCol != activeCols; activeCol = activeCol
+                .getNextActive()) {
+            if (minCol == null || activeCol.getColSum() < minCol.getColSum()) {
+                minCol = activeCol;
 
-            if (activeCol.isActive()) {
-                if (minCol == null || activeCol.getColSum() < minCol.getColSum()) {
-                    minCol = activeCol;
+                if (minCol.getColSum() <= 1) {
+                    break;
                 }
             }
         }
@@ -157,44 +323,88 @@ public class KillerAdvancedSolver extends KillerSudokuSolver {
     }
 
     private void updateRowsByCage(KillerSudokuGrid.Cage cage) {
-        // This function performs both detaching and reattaching operations
+        /*
+         * Recompute the digits that can occupy the cage and only touch the rows of
+         * digits whose status changed. Every detach or reattach goes on the cage
+         * trail so undoCageUpdates() can reverse it
+         */
+        if (stats != null) {
+            stats.cageUpdate();
+        }
+
+        long oldMask = cage.getPossibleMask();
+
         cage.findCombinations(grid.getDigits());
 
-        for (int digit : grid.getDigits()) {
-            // remove row
+        long newMask = cage.getPossibleMask();
+
+        for (long changed = oldMask ^ newMask; changed != 0; changed &= changed - 1) {
+            int position = Long.numberOfTrailingZeros(changed);
+            boolean possible = (newMask & (1L << position)) != 0;
+
             for (KillerSudokuGrid.Cell cell : cage.getCells()) {
                 int xRowNum = cell.getRow() * gridDimensions * gridDimensions + cell.getCol() * gridDimensions
-                        + grid.getDigitPosition(digit);
+                        + position;
 
                 MatrixRow xRow = rowHeaders[xRowNum];
 
-                if (!xRow.isConstraintLocked()) {
-                    Constraint constraint = (Constraint) xRow.getRight();
+                if (xRow.isConstraintLocked() || xRow.isCageLocked() != possible) {
+                    continue;
+                }
+
+                if (cageTrailSize == cageTrail.length) {
+                    cageTrail = Arrays.copyOf(cageTrail, 2 * cageTrail.length);
+                }
 
-                    if (xRow.isCageLocked() && cage.getPossibleDigits().contains(digit)) {
-                        // need to reattach these nodes
-                        xRow.setCageLock(false);
+                if (possible) {
+                    // need to reattach these nodes
+                    attachRow(xRow);
+                    cageTrail[cageTrailSize++] = ~xRowNum;
+                } else {
+                    // need to remove nodes in this row
+                    detachRow(xRow);
+                    cageTrail[cageTrailSize++] = xRowNum;
+                }
+            }
+        }
+    }
 
-                        for (int i = 0; i < 4; i++) {
-                            constraint.reattachNode();
+    private void undoCageUpdates(int mark) {
+        // Reverse the cage trail back to the mark, latest change first
+        while (cageTrailSize > mark) {
+            int entry = cageTrail[--cageTrailSize];
 
-                            constraint = (Constraint) constraint.getRight();
-                        }
-                    }
+            if (entry >= 0) {
+                attachRow(rowHeaders[entry]);
+            } else {
+                detachRow(rowHeaders[~entry]);
+            }
+        }
+    }
 
-                    if (!xRow.isCageLocked() && !cage.getPossibleDigits().contains(digit)) {
-                        // need to remove nodes in this row
-                        xRow.setCageLock(true);
+    private void detachRow(MatrixRow xRow) {
+        Constraint constraint = (Constraint) xRow.getRight();
 
-                        for (int i = 0; i < 4; i++) {
-                            constraint.detachNode();
+        for (int i = 0; i < 4; i++) {
+            constraint.detachNode();
 
-                            constraint = (Constraint) constraint.getRight();
-                        }
-                    }
-                }
-            }
+            constraint = (Constraint) constraint.getRight();
         }
+
+        xRow.setCageLock(true);
+    }
+
+    private void attachRow(MatrixRow xRow) {
+        // The 4 nodes are in different columns, so their order doesn't matter
+        Constraint constraint = (Constraint) xRow.getRight();
+
+        for (int i = 0; i < 4; i++) {
+            constraint.reattachNode();
+
+            constraint = (Constraint) constraint.getRight();
+        }
+
+        xRow.setCageLock(false);
     }
 
     private void removeConstraintsByRow(int rowNum) {
@@ -203,6 +413,10 @@ public class KillerAdvancedSolver extends KillerSudokuSolver {
         MatrixCol colConstraint = colHeaders[colConstraintByRow(rowNum)];
         MatrixCol boxConstraint = colHeaders[boxConstraintByRow(rowNum)];
 
+        if (stats != null) {
+            stats.cover(4);
+        }
+
         cellConstraint.setStatus(false);
         rowConstraint.setStatus(false);
         colConstraint.setStatus(false);
@@ -220,10 +434,15 @@ public class KillerAdvancedSolver extends KillerSudokuSolver {
         MatrixCol colConstraint = colHeaders[colConstraintByRow(rowNum)];
         MatrixCol boxConstraint = colHeaders[boxConstraintByRow(rowNum)];
 
-        cellConstraint.setStatus(true);
-        rowConstraint.setStatus(true);
-        colConstraint.setStatus(true);
+        if (stats != null) {
+            stats.uncover(4);
+        }
+
+        // Reactivate in reverse order so the active column list relinks correctly
         boxConstraint.setStatus(true);
+        colConstraint.setStatus(true);
+        rowConstraint.setStatus(true);
+        cellConstraint.setStatus(true);
 
         resetConstraintsByCol(cellConstraint);
         resetConstraintsByCol(rowConstraint);
@@ -336,6 +555,10 @@ public class KillerAdvancedSolver extends KillerSudokuSolver {
         private boolean isActive;
         private int colSum;
 
+        // Neighbours in the list of active columns
+        private MatrixCol prevActive = this;
+        private MatrixCol nextActive = this;
+
         public MatrixCol(int dimensions) {
             super();
 
@@ -361,7 +584,32 @@ public class KillerAdvancedSolver extends KillerSudokuSolver {
         }
 
         public void setStatus(boolean newStatus) {
+            if (this.isActive == newStatus) {
+                return;
+            }
+
             this.isActive = newStatus;
+
+            if (newStatus) {
+                // Relies on columns being reactivated in reverse order of removal
+                this.prevActive.nextActive = this;
+                this.nextActive.prevActive = this;
+            } else {
+                this.prevActive.nextActive = this.nextActive;
+                this.nextActive.prevActive = this.prevActive;
+            }
+        }
+
+        public void linkBefore(MatrixCol col) {
+            this.prevActive = col.prevActive;
+            this.nextActive = col;
+
+            col.prevActive.nextActive = this;
+            col.prevActive = this;
+        }
+
+        public MatrixCol getNextActive() {
+            return this.nextActive;
         }
 
         public void decrementSum() {
@@ -16,6 +16,10 @@ public class KillerBackTrackingSolver extends KillerSudokuSolver {
     private int gridDimensions;
     KillerSudokuGrid grid;
 
+    // Search stacks, the cell and digit position tried at each level
+    private int[] cellStack;
+    private int[] digitStack;
+
     public KillerBackTrackingSolver() {
         // No constructor required
     } // end of KillerBackTrackingSolver()
@@ -25,36 +29,94 @@ public class KillerBackTrackingSolver extends KillerSudokuSolver {
         this.grid = (KillerSudokuGrid) grid;
         gridDimensions = grid.getSize();
 
-        for (int i = 0; i < gridDimensions * gridDimensions; i++) {
-            int row = i / gridDimensions;
-            int col = i % gridDimensions;
+        resetStats();
 
-            if (grid.getCellValue(row, col) == 0) {
-                for (int digitPosition = 0; digitPosition < gridDimensions; digitPosition++) {
-                    // Need to first check if digit is already in cage, as duplicate digits within
-                    // cages throw up unique issues
-                    if (this.grid.getCage(row, col).checkDuplicates(this.grid.getDigits().get(digitPosition))) {
-                        continue;
-                    }
+        return solveNext();
+    } // end of solve()
+
+    private boolean solveNext() {
+        /*
+         * Depth first search over the empty cells in order. Rather than recursing
+         * per cell, the cell and digit being tried at each level are kept on
+         * explicit stacks, so the depth isn't limited by the thread's stack size
+         */
+        int numCells = gridDimensions * gridDimensions;
 
-                    grid.setCell(row, col, digitPosition);
+        if (cellStack == null || cellStack.length != numCells) {
+            cellStack = new int[numCells];
+            digitStack = new int[numCells];
+        }
 
-                    if (checkInsertion(row, col)) {
-                        if (grid.checkComplete()) {
-                            return true;
-                        } else if (solve(grid)) {
-                            return true;
-                        }
-                    }
-                }
+        int depth = 0;
+        cellStack[0] = nextEmptyCell(0);
+        digitStack[0] = -1;
+
+        if (cellStack[0] == -1) {
+            return false;
+        }
+
+        if (stats != null) {
+            stats.enterNode();
+        }
+
+        while (depth >= 0) {
+            int row = cellStack[depth] / gridDimensions;
+            int col = cellStack[depth] % gridDimensions;
+            int digitPosition = ++digitStack[depth];
 
+            if (digitPosition == gridDimensions) {
+                // Every digit failed, clear the cell and return to the previous one
                 grid.setCell(row, col, -1);
-                return false;
+
+                if (stats != null) {
+                    stats.backtrack();
+                    stats.exitNode();
+                }
+
+                depth--;
+                continue;
+            }
+
+            // Need to first check if digit is already in cage, as duplicate digits within
+            // cages throw up unique issues
+            if (grid.getCage(row, col).checkDuplicates(grid.getDigits().get(digitPosition))) {
+                continue;
+            }
+
+            grid.setCell(row, col, digitPosition);
+
+            if (checkInsertion(row, col)) {
+                if (grid.checkComplete()) {
+                    return true;
+                }
+
+                // Cells before this one are all filled
+                int nextCell = nextEmptyCell(cellStack[depth] + 1);
+
+                if (nextCell != -1) {
+                    depth++;
+                    cellStack[depth] = nextCell;
+                    digitStack[depth] = -1;
+
+                    if (stats != null) {
+                        stats.enterNode();
+                    }
+                }
             }
         }
 
         return false;
-    } // end of solve()
+    }
+
+    private int nextEmptyCell(int startIndex) {
+        for (int i = startIndex; i < gridDimensions * gridDimensions; i++) {
+            if (grid.getCellValue(i / gridDimensions, i % gridDimensions) == 0) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
 
     private boolean checkInsertion(int rowNum, int colNum) {
         /*
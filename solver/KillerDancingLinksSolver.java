@@ -0,0 +1,304 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * Implemented by Dylan Pleiter (s3252987)
+ */
+
+package solver;
+
+import java.util.*;
+import grid.KillerSudokuGrid;
+import grid.SudokuGrid;
+
+/**
+ * Dancing links solver for Killer Sudoku that puts the cages in the exact
+ * cover matrix itself.
+ *
+ * Besides the 4 standard Sudoku constraints, each cage has a column that one
+ * of its digit combinations must cover, and a column per digit. A digit's
+ * column is covered either by the cell of the cage holding that digit, or by
+ * the chosen combination if the digit isn't in it. So each cage gets exactly
+ * the digits of one combination adding up to its sum, and cages take part in
+ * the usual fewest-rows column choice.
+ *
+ * Cell digits ruled out by the cage and house sums are left out of the
+ * matrix altogether.
+ */
+public class KillerDancingLinksSolver extends KillerSudokuSolver {
+    private DancingLinksMatrix matrix;
+    private int gridDimensions;
+
+    private int numCellRows;
+    private int numCages;
+
+    // Works out each cell's digits from the cage and house sums before searching
+    private HouseSumPreprocessor preprocessor = new HouseSumPreprocessor();
+
+    // Digit combinations of every cage, as digit position masks, with their cage
+    private ArrayList<Long> comboMasks;
+    private ArrayList<Integer> comboCages;
+
+    // Columns covered by each matrix row, for the stats
+    private int[] rowLengths;
+
+    // Search stacks, the covered column and selected row node at each level
+    private int[] colStack;
+    private int[] nodeStack;
+
+    public KillerDancingLinksSolver() {
+        // No constructor needed
+    } // end of KillerDancingLinksSolver()
+
+    @Override
+    public boolean solve(SudokuGrid grid) {
+        /*
+         * The matrix depends on the cages, so it is built for each puzzle. Filled
+         * cells are left with only their own digit by the preprocessing, so they
+         * need no special handling
+         */
+        KillerSudokuGrid killerGrid = (KillerSudokuGrid) grid;
+
+        gridDimensions = grid.getSize();
+
+        resetStats();
+
+        long[] cellMasks = preprocessor.restrict(killerGrid);
+
+        if (cellMasks == null) {
+            return false;
+        }
+
+        initMatrix(killerGrid, cellMasks);
+
+        return performCalcs(grid);
+    } // end of solve()
+
+    private void initMatrix(KillerSudokuGrid grid, long[] cellMasks) {
+        /*
+         * Columns are the 4 standard constraints, then one per cage, then one per
+         * cage and digit. Cell rows come first, numbered as in the standard
+         * solvers, followed by a row per cage combination
+         */
+        ArrayList<KillerSudokuGrid.Cage> cages = grid.getCages();
+
+        numCellRows = gridDimensions * gridDimensions * gridDimensions;
+        numCages = cages.size();
+
+        int[] cellCages = new int[gridDimensions * gridDimensions];
+
+        comboMasks = new ArrayList<Long>();
+        comboCages = new ArrayList<Integer>();
+
+        for (int cageIndex = 0; cageIndex < numCages; cageIndex++) {
+            KillerSudokuGrid.Cage cage = cages.get(cageIndex);
+            long available = 0;
+
+            for (KillerSudokuGrid.Cell cell : cage.getCells()) {
+                int cellIndex = cell.getRow() * gridDimensions + cell.getCol();
+
+                cellCages[cellIndex] = cageIndex;
+                available |= cellMasks[cellIndex];
+            }
+
+            addCombinations(grid, cageIndex, available, 0, cage.getCells().size(), cage.getTargetValue(), 0);
+        }
+
+        int cageCol = 4 * gridDimensions * gridDimensions;
+        int cageDigitCol = cageCol + numCages;
+        int numRows = numCellRows + comboMasks.size();
+
+        matrix = new DancingLinksMatrix(cageDigitCol + numCages * gridDimensions, numRows,
+                5 * numCellRows + (gridDimensions + 1) * comboMasks.size());
+
+        rowLengths = new int[numRows];
+
+        int[] rowCols = new int[gridDimensions + 1];
+
+        for (int row = 0; row < numCellRows; row++) {
+            int cellIndex = row / gridDimensions;
+            int position = row % gridDimensions;
+
+            if ((cellMasks[cellIndex] & (1L << position)) == 0)
+                continue;
+
+            rowCols[0] = cellConstraintByRow(row);
+            rowCols[1] = rowConstraintByRow(row);
+            rowCols[2] = colConstraintByRow(row);
+            rowCols[3] = boxConstraintByRow(row);
+            rowCols[4] = cageDigitCol + cellCages[cellIndex] * gridDimensions + position;
+
+            matrix.addRow(row, rowCols, 5);
+            rowLengths[row] = 5;
+        }
+
+        for (int combo = 0; combo < comboMasks.size(); combo++) {
+            // The combination covers its cage and the digits it leaves out
+            int cageIndex = comboCages.get(combo);
+            long mask = comboMasks.get(combo);
+            int numRowCols = 0;
+
+            rowCols[numRowCols++] = cageCol + cageIndex;
+
+            for (int position = 0; position < gridDimensions; position++) {
+                if ((mask & (1L << position)) == 0) {
+                    rowCols[numRowCols++] = cageDigitCol + cageIndex * gridDimensions + position;
+                }
+            }
+
+            matrix.addRow(numCellRows + combo, rowCols, numRowCols);
+            rowLengths[numCellRows + combo] = numRowCols;
+        }
+
+        colStack = new int[gridDimensions * gridDimensions + numCages];
+        nodeStack = new int[gridDimensions * gridDimensions + numCages];
+    }
+
+    private void addCombinations(KillerSudokuGrid grid, int cageIndex, long available, int position, int numCells,
+            int sum, long chosen) {
+        // Add every set of numCells digits from available at or after position adding up to sum
+        if (numCells == 0) {
+            if (sum == 0) {
+                comboMasks.add(chosen);
+                comboCages.add(cageIndex);
+            }
+
+            return;
+        }
+
+        for (int next = position; next < gridDimensions; next++) {
+            int value = grid.getDigits().get(next);
+
+            if ((available & (1L << next)) != 0 && value <= sum) {
+                addCombinations(grid, cageIndex, available, next + 1, numCells - 1, sum - value,
+                        chosen | (1L << next));
+            }
+        }
+    }
+
+    private boolean performCalcs(SudokuGrid grid) {
+        /*
+         * The same search as the standard dancing links solver, kept on explicit
+         * stacks. Only cell rows change the grid, combination rows just commit a
+         * cage to its digits
+         */
+        int depth = 0;
+        boolean solved = false;
+
+        while (true) {
+            int minCol = matrix.findMinCol();
+
+            if (minCol == DancingLinksMatrix.ROOT) {
+                // All constraints have been satisfied
+                solved = true;
+                break;
+            }
+
+            if (matrix.getColSum(minCol) != 0) {
+                matrix.cover(minCol);
+
+                colStack[depth] = minCol;
+                nodeStack[depth] = minCol;
+                depth++;
+
+                if (stats != null) {
+                    stats.enterNode();
+                    stats.cover(1);
+                }
+            }
+
+            // Select the next row of the deepest level, leaving levels that have run out
+            boolean selected = false;
+
+            while (depth > 0 && !selected) {
+                int level = depth - 1;
+                int node = nodeStack[level];
+
+                if (node != colStack[level]) {
+                    int rowId = matrix.getRowId(node);
+
+                    matrix.uncoverRowColumns(node);
+                    setRowCell(grid, rowId, -1);
+
+                    if (stats != null) {
+                        stats.uncover(rowLengths[rowId] - 1);
+                        stats.backtrack();
+                    }
+                }
+
+                node = matrix.getBelow(node);
+
+                if (node == colStack[level]) {
+                    matrix.uncover(node);
+
+                    if (stats != null) {
+                        stats.uncover(1);
+                        stats.exitNode();
+                    }
+
+                    depth--;
+                } else {
+                    int rowId = matrix.getRowId(node);
+
+                    nodeStack[level] = node;
+
+                    setRowCell(grid, rowId, rowId % gridDimensions);
+                    matrix.coverRowColumns(node);
+
+                    if (stats != null) {
+                        stats.cover(rowLengths[rowId] - 1);
+                    }
+
+                    selected = true;
+                }
+            }
+
+            if (!selected) {
+                break;
+            }
+        }
+
+        // Always uncover, the solution stays in the grid
+        while (depth > 0) {
+            depth--;
+
+            matrix.uncoverRowColumns(nodeStack[depth]);
+            matrix.uncover(colStack[depth]);
+
+            if (stats != null) {
+                stats.uncover(rowLengths[matrix.getRowId(nodeStack[depth])]);
+            }
+        }
+
+        return solved;
+    }
+
+    private void setRowCell(SudokuGrid grid, int matrixRow, int digit) {
+        // Set the cell of a cell row to a digit position, or -1 to clear it
+        if (matrixRow < numCellRows) {
+            grid.setCell(matrixRow / (gridDimensions * gridDimensions), (matrixRow / gridDimensions) % gridDimensions,
+                    digit);
+        }
+    }
+
+    // Helper methods that return column of constraints for a given row
+    private int cellConstraintByRow(int rowNum) {
+        return rowNum / gridDimensions;
+    }
+
+    private int rowConstraintByRow(int rowNum) {
+        return (gridDimensions * gridDimensions) + gridDimensions * (rowNum / (gridDimensions * gridDimensions))
+                + rowNum % gridDimensions;
+    }
+
+    private int colConstraintByRow(int rowNum) {
+        return 2 * gridDimensions * gridDimensions + rowNum % (gridDimensions * gridDimensions);
+    }
+
+    private int boxConstraintByRow(int rowNum) {
+        int boxSize = (int) Math.sqrt(gridDimensions);
+        int gridRow = rowNum / (gridDimensions * gridDimensions);
+        int gridCol = (rowNum / gridDimensions) % gridDimensions;
+        int box = (gridRow / boxSize) * boxSize + gridCol / boxSize;
+
+        return 3 * gridDimensions * gridDimensions + gridDimensions * box + rowNum % gridDimensions;
+    }
+} // end of class KillerDancingLinksSolver
@@ -0,0 +1,347 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * Implemented by Dylan Pleiter (s3252987)
+ */
+
+package solver;
+
+import grid.SudokuGrid;
+import grid.KillerSudokuGrid;
+
+/**
+ * Backtracking solver for Killer Sudoku that prunes on cage sum bounds.
+ *
+ * After each placement the smallest and largest sums the cage's unused
+ * digits can make with its remaining empty cells are worked out, and the
+ * branch is dropped as soon as the cage's remaining sum falls outside them.
+ * The same bounds rule out digits too large or small for an empty cell
+ * before they are tried, and the search branches on the empty cell with
+ * the fewest digits left.
+ * Digits used in each row, column and box are kept as bitmasks of digit
+ * positions, so checking an insertion is O(1).
+ */
+public class KillerPruningSolver extends KillerSudokuSolver {
+    private KillerSudokuGrid grid;
+    private int gridDimensions;
+    private int boxSize;
+    private long allDigits;
+
+    // Value of each digit position, and the digit positions in increasing value
+    private int[] values;
+    private int[] ascending;
+
+    private long[] rowMasks;
+    private long[] colMasks;
+    private long[] boxMasks;
+
+    // Search stacks, the cell and digit tried at each level
+    private int[] cellStack;
+    private int[] digitStack;
+
+    public KillerPruningSolver() {
+        // No constructor needed
+    } // end of KillerPruningSolver()
+
+    @Override
+    public boolean solve(SudokuGrid grid) {
+        this.grid = (KillerSudokuGrid) grid;
+
+        gridDimensions = grid.getSize();
+        boxSize = (int) Math.sqrt(gridDimensions);
+
+        if (gridDimensions >= Long.SIZE) {
+            throw new IllegalArgumentException("Pruning solver supports at most " + (Long.SIZE - 1) + " digits");
+        }
+
+        resetStats();
+        initDigits();
+
+        if (!initMasks()) {
+            return false;
+        }
+
+        return search();
+    } // end of solve()
+
+    private void initDigits() {
+        allDigits = (1L << gridDimensions) - 1;
+
+        values = new int[gridDimensions];
+        ascending = new int[gridDimensions];
+
+        // Insertion sort of the digit positions by value
+        for (int position = 0; position < gridDimensions; position++) {
+            values[position] = grid.getDigits().get(position);
+
+            int i = position;
+
+            while (i > 0 && values[ascending[i - 1]] > values[position]) {
+                ascending[i] = ascending[i - 1];
+                i--;
+            }
+
+            ascending[i] = position;
+        }
+    }
+
+    private boolean initMasks() {
+        /*
+         * Build row, column and box masks from any filled cells. Returns false if
+         * they already conflict
+         */
+        rowMasks = new long[gridDimensions];
+        colMasks = new long[gridDimensions];
+        boxMasks = new long[gridDimensions];
+
+        for (int row = 0; row < gridDimensions; row++) {
+            for (int col = 0; col < gridDimensions; col++) {
+                int cellValue = grid.getCellValue(row, col);
+
+                if (cellValue == 0)
+                    continue;
+
+                long digitBit = 1L << grid.getDigitPosition(cellValue);
+
+                if ((usedDigits(row, col) & digitBit) != 0) {
+                    return false;
+                }
+
+                markDigit(row, col, digitBit);
+            }
+        }
+
+        for (KillerSudokuGrid.Cage cage : grid.getCages()) {
+            if (!cage.isValid() || !checkCageBounds(cage)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean search() {
+        /*
+         * Depth first search, branching at each level on the empty cell with the
+         * fewest candidate digits (findMinCell()). Explicit stacks hold the cell
+         * and digit being tried at each level
+         */
+        int numCells = gridDimensions * gridDimensions;
+
+        if (cellStack == null || cellStack.length != numCells) {
+            cellStack = new int[numCells];
+            digitStack = new int[numCells];
+        }
+
+        int depth = 0;
+        cellStack[0] = findMinCell();
+        digitStack[0] = -1;
+
+        if (cellStack[0] == -1) {
+            return grid.checkComplete();
+        }
+
+        if (stats != null) {
+            stats.enterNode();
+        }
+
+        while (depth >= 0) {
+            int row = cellStack[depth] / gridDimensions;
+            int col = cellStack[depth] % gridDimensions;
+            KillerSudokuGrid.Cage cage = grid.getCage(row, col);
+
+            if (digitStack[depth] != -1) {
+                // Take back the digit tried last at this level
+                clearCell(row, col, digitStack[depth]);
+
+                if (stats != null) {
+                    stats.backtrack();
+                }
+            }
+
+            // Digits that break no house rule and fit the cage bounds
+            long candidates = cageCandidates(cage) & ~usedDigits(row, col);
+            candidates &= -1L << (digitStack[depth] + 1);
+
+            int digit = -1;
+
+            while (candidates != 0 && digit == -1) {
+                int tryDigit = Long.numberOfTrailingZeros(candidates);
+                candidates &= candidates - 1;
+
+                setCell(row, col, tryDigit);
+
+                if (checkCageBounds(cage)) {
+                    digit = tryDigit;
+                } else {
+                    clearCell(row, col, tryDigit);
+                }
+            }
+
+            if (digit == -1) {
+                // Every digit failed, return to the previous cell
+                if (stats != null) {
+                    stats.exitNode();
+                }
+
+                depth--;
+                continue;
+            }
+
+            digitStack[depth] = digit;
+
+            int nextCell = findMinCell();
+
+            if (nextCell == -1) {
+                // Every cage is full and within bounds, so every cage sum is met
+                return true;
+            }
+
+            depth++;
+            cellStack[depth] = nextCell;
+            digitStack[depth] = -1;
+
+            if (stats != null) {
+                stats.enterNode();
+            }
+        }
+
+        return false;
+    }
+
+    private long cageCandidates(KillerSudokuGrid.Cage cage) {
+        /*
+         * Unused digits of the cage that can go in one of its empty cells. A digit
+         * needs the other empty cells to make up the rest of the remaining sum, so
+         * it can be no larger than the remaining sum less the smallest sum of the
+         * other cells, and no smaller than the remaining sum less their largest
+         */
+        int remaining = cage.getTargetValue() - cage.getCurrentValue();
+        int otherCells = cage.getCells().size() - cage.getNumFilled() - 1;
+        long available = allDigits & ~cage.getDigitMask();
+
+        int minOthers = 0;
+        int maxOthers = 0;
+
+        for (int i = 0, taken = 0; taken < otherCells && i < gridDimensions; i++) {
+            if ((available & (1L << ascending[i])) != 0) {
+                minOthers += values[ascending[i]];
+                taken++;
+            }
+        }
+
+        for (int i = gridDimensions - 1, taken = 0; taken < otherCells && i >= 0; i--) {
+            if ((available & (1L << ascending[i])) != 0) {
+                maxOthers += values[ascending[i]];
+                taken++;
+            }
+        }
+
+        long candidates = 0;
+
+        for (long digits = available; digits != 0; digits &= digits - 1) {
+            int position = Long.numberOfTrailingZeros(digits);
+
+            if (values[position] <= remaining - minOthers && values[position] >= remaining - maxOthers) {
+                candidates |= 1L << position;
+            }
+        }
+
+        return candidates;
+    }
+
+    private boolean checkCageBounds(KillerSudokuGrid.Cage cage) {
+        /*
+         * Check the cage's remaining sum can be made from its unused digits, one per
+         * empty cell, using the smallest and largest such sums as bounds
+         */
+        int remaining = cage.getTargetValue() - cage.getCurrentValue();
+        int freeCells = cage.getCells().size() - cage.getNumFilled();
+        long available = allDigits & ~cage.getDigitMask();
+
+        if (freeCells == 0) {
+            return remaining == 0;
+        }
+
+        if (Long.bitCount(available) < freeCells) {
+            return false;
+        }
+
+        int minSum = 0;
+        int maxSum = 0;
+
+        for (int i = 0, taken = 0; taken < freeCells; i++) {
+            if ((available & (1L << ascending[i])) != 0) {
+                minSum += values[ascending[i]];
+                taken++;
+            }
+        }
+
+        for (int i = gridDimensions - 1, taken = 0; taken < freeCells; i--) {
+            if ((available & (1L << ascending[i])) != 0) {
+                maxSum += values[ascending[i]];
+                taken++;
+            }
+        }
+
+        return remaining >= minSum && remaining <= maxSum;
+    }
+
+    private int findMinCell() {
+        /*
+         * Return the empty cell with the fewest digits left by its row, column, box
+         * and cage as row * gridDimensions + col, or -1 if the grid is full
+         */
+        int bestCell = -1;
+        int bestCount = Integer.MAX_VALUE;
+
+        for (int row = 0; row < gridDimensions; row++) {
+            for (int col = 0; col < gridDimensions; col++) {
+                if (grid.getCellValue(row, col) != 0)
+                    continue;
+
+                long candidates = cageCandidates(grid.getCage(row, col)) & ~usedDigits(row, col);
+                int count = Long.bitCount(candidates);
+
+                if (count < bestCount) {
+                    bestCell = row * gridDimensions + col;
+                    bestCount = count;
+
+                    if (count <= 1) {
+                        return bestCell;
+                    }
+                }
+            }
+        }
+
+        return bestCell;
+    }
+
+    private void setCell(int row, int col, int digit) {
+        grid.setCell(row, col, digit);
+        markDigit(row, col, 1L << digit);
+    }
+
+    private void clearCell(int row, int col, int digit) {
+        grid.setCell(row, col, -1);
+
+        long clearBit = ~(1L << digit);
+
+        rowMasks[row] &= clearBit;
+        colMasks[col] &= clearBit;
+        boxMasks[boxIndex(row, col)] &= clearBit;
+    }
+
+    private void markDigit(int row, int col, long digitBit) {
+        rowMasks[row] |= digitBit;
+        colMasks[col] |= digitBit;
+        boxMasks[boxIndex(row, col)] |= digitBit;
+    }
+
+    private long usedDigits(int row, int col) {
+        return rowMasks[row] | colMasks[col] | boxMasks[boxIndex(row, col)];
+    }
+
+    private int boxIndex(int row, int col) {
+        return (row / boxSize) * boxSize + col / boxSize;
+    }
+} // end of class KillerPruningSolver
@@ -0,0 +1,196 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * Implemented by Dylan Pleiter (s3252987)
+ */
+
+package solver;
+
+import grid.SudokuGrid;
+
+/**
+ * Standard Sudoku solver that fills naked and hidden singles before
+ * searching.
+ *
+ * Given another solver, singles are filled once as a pre-pass and whatever
+ * is left is handed to that solver. Without one, singles are filled again at
+ * every node of its own backtracking search, which branches on the empty
+ * cell with the fewest candidates.
+ */
+public class PropagatingSolver extends StdSudokuSolver {
+    // Solver run after the pre-pass, or null to propagate at every node
+    private StdSudokuSolver solver;
+    private SinglesPropagator propagator = new SinglesPropagator();
+
+    private SudokuGrid grid;
+    private int gridDimensions;
+
+    // Search stacks, the cell, untried candidates and trail mark at each level
+    private int[] cellStack;
+    private long[] candidateStack;
+    private int[] markStack;
+
+    public PropagatingSolver() {
+        this(null);
+    } // end of PropagatingSolver()
+
+    public PropagatingSolver(StdSudokuSolver solver) {
+        this.solver = solver;
+    } // end of PropagatingSolver()
+
+    @Override
+    public boolean solve(SudokuGrid grid) {
+        this.grid = grid;
+        gridDimensions = grid.getSize();
+
+        resetStats();
+
+        if (solver != null) {
+            // The wrapped solver may not run at all
+            solver.resetStats();
+        }
+
+        if (!propagator.init(grid)) {
+            return false;
+        }
+
+        boolean solved = false;
+
+        if (propagator.propagate()) {
+            // Singles alone may complete the grid, which not every solver expects
+            solved = grid.checkComplete() || (solver != null ? solver.solve(grid) : search());
+        }
+
+        if (!solved) {
+            // Leave the grid as it was given
+            propagator.undo(0);
+        }
+
+        return solved;
+    } // end of solve()
+
+    @Override
+    public void setStatsEnabled(boolean enabled) {
+        super.setStatsEnabled(enabled);
+
+        if (solver != null) {
+            solver.setStatsEnabled(enabled);
+        }
+    } // end of setStatsEnabled()
+
+    @Override
+    public SolverStats getStats() {
+        // The wrapped solver does all the searching after the pre-pass
+        return solver != null ? solver.getStats() : stats;
+    } // end of getStats()
+
+    @Override
+    public void close() {
+        if (solver != null) {
+            solver.close();
+        }
+    } // end of close()
+
+    private boolean search() {
+        /*
+         * Branch on the empty cell with the fewest candidates, filling singles after
+         * each guess. The search is kept on explicit stacks rather than recursion,
+         * each level holding its cell, the candidates not yet tried and the trail
+         * mark of the guess being tried, or -1 before the first guess
+         */
+        int numCells = gridDimensions * gridDimensions;
+
+        if (cellStack == null || cellStack.length != numCells) {
+            cellStack = new int[numCells];
+            candidateStack = new long[numCells];
+            markStack = new int[numCells];
+        }
+
+        int depth = 0;
+
+        while (true) {
+            int cell = findMinCell();
+
+            if (cell == -1) {
+                // No empty cells left
+                return true;
+            }
+
+            cellStack[depth] = cell;
+            candidateStack[depth] = propagator.candidates(cell / gridDimensions, cell % gridDimensions);
+            markStack[depth] = -1;
+            depth++;
+
+            if (stats != null) {
+                stats.enterNode();
+            }
+
+            // Make the next guess of the deepest level that propagates without contradiction
+            boolean guessed = false;
+
+            while (depth > 0 && !guessed) {
+                int level = depth - 1;
+
+                if (markStack[level] != -1) {
+                    propagator.undo(markStack[level]);
+
+                    if (stats != null) {
+                        stats.backtrack();
+                    }
+                }
+
+                long candidates = candidateStack[level];
+
+                if (candidates == 0) {
+                    if (stats != null) {
+                        stats.exitNode();
+                    }
+
+                    depth--;
+                    continue;
+                }
+
+                candidateStack[level] = candidates & (candidates - 1);
+                markStack[level] = propagator.mark();
+
+                propagator.place(cellStack[level] / gridDimensions, cellStack[level] % gridDimensions,
+                        Long.numberOfTrailingZeros(candidates));
+
+                guessed = propagator.propagate();
+            }
+
+            if (!guessed) {
+                return false;
+            }
+        }
+    }
+
+    private int findMinCell() {
+        /*
+         * Return the empty cell with the fewest candidates as row * gridDimensions +
+         * col, or -1 if the grid is full. Singles are already filled, so a cell with
+         * 2 candidates can't be beaten
+         */
+        int bestCell = -1;
+        int bestCount = Integer.MAX_VALUE;
+
+        for (int row = 0; row < gridDimensions; row++) {
+            for (int col = 0; col < gridDimensions; col++) {
+                if (grid.getCellValue(row, col) != 0)
+                    continue;
+
+                int count = Long.bitCount(propagator.candidates(row, col));
+
+                if (count < bestCount) {
+                    bestCell = row * gridDimensions + col;
+                    bestCount = count;
+
+                    if (count <= 2) {
+                        return bestCell;
+                    }
+                }
+            }
+        }
+
+        return bestCell;
+    }
+} // end of class PropagatingSolver
@@ -0,0 +1,275 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * Implemented by Dylan Pleiter (s3252987)
+ */
+
+package solver;
+
+import grid.SudokuGrid;
+
+/**
+ * Fills in the cells of a standard Sudoku grid that follow by logic alone.
+ * The digits used in each row, column and box are kept as bitmasks of digit
+ * positions, so the candidates of a cell are a couple of mask operations.
+ *
+ * A naked single is a cell with only one candidate, and a hidden single is a
+ * digit with only one possible cell in a row, column or box. Both are filled
+ * repeatedly until neither applies. Every cell filled is recorded on a trail,
+ * so a search can take a mark(), place digits and propagate, then undo()
+ * back to the mark when it backtracks.
+ */
+public class SinglesPropagator {
+    private SudokuGrid grid;
+    private int gridDimensions;
+    private int boxSize;
+    private long allDigits;
+
+    private long[] rowMasks;
+    private long[] colMasks;
+    private long[] boxMasks;
+
+    // Cells filled since init(), as row * gridDimensions + col
+    private int[] trail;
+    private int trailSize;
+
+    public SinglesPropagator() {
+        // No constructor needed
+    } // end of SinglesPropagator()
+
+    /**
+     * Builds the digit masks from the cells already filled in the grid.
+     *
+     * @param grid Grid to propagate in.
+     *
+     * @return False if the filled cells already conflict.
+     */
+    public boolean init(SudokuGrid grid) {
+        this.grid = grid;
+
+        if (gridDimensions != grid.getSize() || rowMasks == null) {
+            gridDimensions = grid.getSize();
+            boxSize = (int) Math.sqrt(gridDimensions);
+
+            if (gridDimensions > Long.SIZE) {
+                throw new IllegalArgumentException("Propagation supports at most " + Long.SIZE + " digits");
+            }
+
+            allDigits = gridDimensions == Long.SIZE ? -1L : (1L << gridDimensions) - 1;
+
+            rowMasks = new long[gridDimensions];
+            colMasks = new long[gridDimensions];
+            boxMasks = new long[gridDimensions];
+            trail = new int[gridDimensions * gridDimensions];
+        }
+
+        for (int i = 0; i < gridDimensions; i++) {
+            rowMasks[i] = 0;
+            colMasks[i] = 0;
+            boxMasks[i] = 0;
+        }
+
+        trailSize = 0;
+
+        for (int row = 0; row < gridDimensions; row++) {
+            for (int col = 0; col < gridDimensions; col++) {
+                int cellValue = grid.getCellValue(row, col);
+
+                if (cellValue == 0)
+                    continue;
+
+                long digitBit = 1L << grid.getDigitPosition(cellValue);
+
+                if ((candidates(row, col) & digitBit) == 0) {
+                    return false;
+                }
+
+                markDigit(row, col, digitBit);
+            }
+        }
+
+        return true;
+    } // end of init()
+
+    /**
+     * @return Position on the trail, to undo() back to.
+     */
+    public int mark() {
+        return trailSize;
+    } // end of mark()
+
+    /**
+     * Clears every cell filled since the mark was taken.
+     */
+    public void undo(int mark) {
+        while (trailSize > mark) {
+            int cell = trail[--trailSize];
+            int row = cell / gridDimensions;
+            int col = cell % gridDimensions;
+
+            long clearBit = ~(1L << grid.getDigitPosition(grid.getCellValue(row, col)));
+
+            rowMasks[row] &= clearBit;
+            colMasks[col] &= clearBit;
+            boxMasks[boxIndex(row, col)] &= clearBit;
+
+            grid.setCell(row, col, -1);
+        }
+    } // end of undo()
+
+    /**
+     * @return Bitmask of digit positions that can go in an empty cell.
+     */
+    public long candidates(int row, int col) {
+        return allDigits & ~(rowMasks[row] | colMasks[col] | boxMasks[boxIndex(row, col)]);
+    } // end of candidates()
+
+    /**
+     * Fills an empty cell, which must have the digit as a candidate.
+     */
+    public void place(int row, int col, int digit) {
+        grid.setCell(row, col, digit);
+        markDigit(row, col, 1L << digit);
+
+        trail[trailSize++] = row * gridDimensions + col;
+    } // end of place()
+
+    /**
+     * Fills naked and hidden singles until there are none left.
+     *
+     * @return False if a cell has no candidates or a digit has no cell left in
+     *          some row, column or box, so the grid can't be completed.
+     */
+    public boolean propagate() {
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+
+            // Naked singles
+            for (int row = 0; row < gridDimensions; row++) {
+                for (int col = 0; col < gridDimensions; col++) {
+                    if (grid.getCellValue(row, col) != 0)
+                        continue;
+
+                    long cellCandidates = candidates(row, col);
+
+                    if (cellCandidates == 0) {
+                        return false;
+                    }
+
+                    if ((cellCandidates & (cellCandidates - 1)) == 0) {
+                        place(row, col, Long.numberOfTrailingZeros(cellCandidates));
+                        changed = true;
+                    }
+                }
+            }
+
+            // Hidden singles, houses are numbered rows then columns then boxes
+            for (int house = 0; house < 3 * gridDimensions; house++) {
+                int result = fillHiddenSingles(house);
+
+                if (result < 0) {
+                    return false;
+                }
+
+                if (result > 0) {
+                    changed = true;
+                }
+            }
+        }
+
+        return true;
+    } // end of propagate()
+
+    private int fillHiddenSingles(int house) {
+        /*
+         * Find digits that fit in exactly one cell of the house and place them.
+         * Returns the number placed, or -1 on a contradiction
+         */
+        long once = 0;
+        long twice = 0;
+        long used = 0;
+
+        for (int i = 0; i < gridDimensions; i++) {
+            int row = houseRow(house, i);
+            int col = houseCol(house, i);
+
+            int cellValue = grid.getCellValue(row, col);
+
+            if (cellValue != 0) {
+                used |= 1L << grid.getDigitPosition(cellValue);
+                continue;
+            }
+
+            long cellCandidates = candidates(row, col);
+
+            twice |= once & cellCandidates;
+            once |= cellCandidates;
+        }
+
+        if ((allDigits & ~used & ~once) != 0) {
+            // A missing digit can't go anywhere in this house
+            return -1;
+        }
+
+        long singles = once & ~twice;
+        int numPlaced = 0;
+
+        while (singles != 0) {
+            int digit = Long.numberOfTrailingZeros(singles);
+            singles &= singles - 1;
+
+            for (int i = 0; i < gridDimensions; i++) {
+                int row = houseRow(house, i);
+                int col = houseCol(house, i);
+
+                if (grid.getCellValue(row, col) == 0 && (candidates(row, col) & (1L << digit)) != 0) {
+                    place(row, col, digit);
+                    numPlaced++;
+                    break;
+                }
+
+                if (i == gridDimensions - 1) {
+                    // The only cell for this digit took another hidden single
+                    return -1;
+                }
+            }
+        }
+
+        return numPlaced;
+    }
+
+    private int houseRow(int house, int i) {
+        if (house < gridDimensions) {
+            return house;
+        } else if (house < 2 * gridDimensions) {
+            return i;
+        }
+
+        int box = house - 2 * gridDimensions;
+
+        return (box / boxSize) * boxSize + i / boxSize;
+    }
+
+    private int houseCol(int house, int i) {
+        if (house < gridDimensions) {
+            return i;
+        } else if (house < 2 * gridDimensions) {
+            return house - gridDimensions;
+        }
+
+        int box = house - 2 * gridDimensions;
+
+        return (box % boxSize) * boxSize + i % boxSize;
+    }
+
+    private void markDigit(int row, int col, long digitBit) {
+        rowMasks[row] |= digitBit;
+        colMasks[col] |= digitBit;
+        boxMasks[boxIndex(row, col)] |= digitBit;
+    }
+
+    private int boxIndex(int row, int col) {
+        return (row / boxSize) * boxSize + col / boxSize;
+    }
+} // end of class SinglesPropagator
@@ -0,0 +1,118 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * Implemented by Dylan Pleiter (s3252987)
+ */
+
+package solver;
+
+/**
+ * Counters describing the work done by one solve. Solvers only record into
+ * this when statistics are enabled, otherwise they hold no stats object and
+ * each event costs a single null check.
+ */
+public class SolverStats {
+    private long nodes;
+    private long backtracks;
+    private long covers;
+    private long uncovers;
+    private long cageUpdates;
+
+    private int depth;
+    private int maxDepth;
+    private long depthSum;
+
+    public void reset() {
+        nodes = 0;
+        backtracks = 0;
+        covers = 0;
+        uncovers = 0;
+        cageUpdates = 0;
+
+        depth = 0;
+        maxDepth = 0;
+        depthSum = 0;
+    }
+
+    public void enterNode() {
+        // Called on entry to each search node, the first node is at depth 1
+        nodes++;
+        depth++;
+        depthSum += depth;
+
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+    }
+
+    public void exitNode() {
+        depth--;
+    }
+
+    public void backtrack() {
+        backtracks++;
+    }
+
+    public void cover(int numCols) {
+        covers += numCols;
+    }
+
+    public void uncover(int numCols) {
+        uncovers += numCols;
+    }
+
+    public void cageUpdate() {
+        cageUpdates++;
+    }
+
+    public void setDepth(int depth) {
+        // Depth of the node recording starts at, for a subtree searched on its own
+        this.depth = depth;
+    }
+
+    public synchronized void add(SolverStats other) {
+        // Merge the counts of a subtree searched separately, such as on another thread
+        nodes += other.nodes;
+        backtracks += other.backtracks;
+        covers += other.covers;
+        uncovers += other.uncovers;
+        cageUpdates += other.cageUpdates;
+
+        maxDepth = Math.max(maxDepth, other.maxDepth);
+        depthSum += other.depthSum;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    public long getCovers() {
+        return covers;
+    }
+
+    public long getUncovers() {
+        return uncovers;
+    }
+
+    public long getCageUpdates() {
+        return cageUpdates;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public double getAverageDepth() {
+        return nodes == 0 ? 0 : ((double) depthSum) / nodes;
+    }
+
+    @Override
+    public String toString() {
+        return "nodes = " + nodes + "\n" + "backtracks = " + backtracks + "\n" + "covers = " + covers + "\n"
+                + "uncovers = " + uncovers + "\n" + "cage updates = " + cageUpdates + "\n" + "max depth = "
+                + maxDepth + "\n" + "average depth = " + getAverageDepth() + "\n";
+    }
+} // end of class SolverStats
@@ -0,0 +1,385 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * Implemented by Dylan Pleiter (s3252987)
+ */
+
+package solver;
+
+import grid.SudokuGrid;
+
+/**
+ * Algorithm X solver for standard Sudoku that indexes the rows of each
+ * constraint column. Every column holds exactly N rows, kept in an array
+ * whose first colSizes entries are the rows still live. Removing a row swaps
+ * it past the live end of the array, so undoing removals in reverse order
+ * only has to grow the live count again. Branching and covering then only
+ * visit rows of the columns involved instead of every row of the matrix.
+ */
+public class SparseAlgorXSolver extends StdSudokuSolver {
+    private int gridDimensions = -1;
+    private int boxSize;
+
+    private int numRows;
+    private int numCols;
+
+    // Rows of each column, gridDimensions per column with the live rows first
+    private int[] colRows;
+    // Live rows in each column
+    private int[] colSizes;
+    private boolean[] colInclusion;
+
+    // The 4 constraint columns of each row, at 4 * rowNum
+    private int[] rowColumns;
+    // Position of each row within the row list of each of its 4 columns
+    private int[] rowPositions;
+
+    // Doubly linked list of active columns, with numCols as the sentinel
+    private int[] prevActive;
+    private int[] nextActive;
+
+    // Rows selected for the givens of the current puzzle
+    private int[] givenRows;
+    private int numGivens;
+
+    // Search stacks, the column satisfied and index of its selected row at each level
+    private int[] colStack;
+    private int[] indexStack;
+
+    public SparseAlgorXSolver() {
+        // No constructor needed
+    } // end of SparseAlgorXSolver()
+
+    @Override
+    public boolean solve(SudokuGrid grid) {
+        /*
+         * The empty matrix only depends on the grid size, so it is kept between
+         * calls. Givens are applied for each puzzle and undone afterwards
+         */
+        if (colRows == null || gridDimensions != grid.getSize()) {
+            gridDimensions = grid.getSize();
+            initMatrix();
+        }
+
+        resetStats();
+
+        boolean solved = applyGivens(grid) && performCalcs(grid);
+
+        removeGivens();
+
+        return solved;
+    } // end of solve()
+
+    private void initMatrix() {
+        boxSize = (int) Math.sqrt(gridDimensions);
+
+        numRows = gridDimensions * gridDimensions * gridDimensions;
+        numCols = 4 * gridDimensions * gridDimensions;
+
+        colRows = new int[numCols * gridDimensions];
+        colSizes = new int[numCols];
+        colInclusion = new boolean[numCols];
+
+        rowColumns = new int[4 * numRows];
+        rowPositions = new int[4 * numRows];
+
+        for (int rowNum = 0; rowNum < numRows; rowNum++) {
+            rowColumns[4 * rowNum] = cellConstraintByRow(rowNum);
+            rowColumns[4 * rowNum + 1] = rowConstraintByRow(rowNum);
+            rowColumns[4 * rowNum + 2] = colConstraintByRow(rowNum);
+            rowColumns[4 * rowNum + 3] = boxConstraintByRow(rowNum);
+
+            for (int k = 4 * rowNum; k < 4 * rowNum + 4; k++) {
+                int colNum = rowColumns[k];
+
+                rowPositions[k] = colSizes[colNum];
+                colRows[colNum * gridDimensions + colSizes[colNum]++] = rowNum;
+            }
+        }
+
+        prevActive = new int[numCols + 1];
+        nextActive = new int[numCols + 1];
+
+        for (int colNum = 0; colNum < numCols; colNum++) {
+            colInclusion[colNum] = true;
+        }
+
+        for (int colNum = 0; colNum <= numCols; colNum++) {
+            prevActive[colNum] = colNum == 0 ? numCols : colNum - 1;
+            nextActive[colNum] = colNum == numCols ? 0 : colNum + 1;
+        }
+
+        givenRows = new int[gridDimensions * gridDimensions];
+        numGivens = 0;
+
+        colStack = new int[gridDimensions * gridDimensions];
+        indexStack = new int[gridDimensions * gridDimensions];
+    }
+
+    private boolean applyGivens(SudokuGrid grid) {
+        /*
+         * Select the row of each given. A row is only removed when one of its own
+         * columns is covered, so if any of its columns is already covered the
+         * givens conflict and false is returned
+         */
+        numGivens = 0;
+
+        for (int row = 0; row < gridDimensions; row++) {
+            for (int col = 0; col < gridDimensions; col++) {
+                if (grid.getCellValue(row, col) != 0) {
+                    int rowNum = gridDimensions * gridDimensions * row + gridDimensions * col
+                            + grid.getDigitPosition(grid.getCellValue(row, col));
+
+                    for (int k = 4 * rowNum; k < 4 * rowNum + 4; k++) {
+                        if (!colInclusion[rowColumns[k]]) {
+                            return false;
+                        }
+                    }
+
+                    for (int k = 4 * rowNum; k < 4 * rowNum + 4; k++) {
+                        cover(rowColumns[k]);
+                    }
+
+                    givenRows[numGivens++] = rowNum;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private void removeGivens() {
+        // Undo in reverse order, returning the matrix to its empty state
+        while (numGivens > 0) {
+            int rowNum = givenRows[--numGivens];
+
+            for (int k = 4 * rowNum + 3; k >= 4 * rowNum; k--) {
+                uncover(rowColumns[k]);
+            }
+        }
+    }
+
+    private boolean performCalcs(SudokuGrid grid) {
+        /*
+         * Depth first search kept on explicit stacks rather than recursion. Each
+         * level holds the covered column being satisfied and the index of the row
+         * selected from its list, or -1 before its first row
+         */
+        int depth = 0;
+        boolean solved = false;
+
+        while (true) {
+            int minCol = findMinCol();
+
+            if (minCol == -1) {
+                // All constraints have been satisfied
+                solved = true;
+                break;
+            }
+
+            if (colSizes[minCol] != 0) {
+                // Once covered, the rows of minCol stay in place while they are tried
+                cover(minCol);
+
+                colStack[depth] = minCol;
+                indexStack[depth] = -1;
+                depth++;
+
+                if (stats != null) {
+                    stats.enterNode();
+                    stats.cover(1);
+                }
+            }
+
+            // Select the next row of the deepest level, leaving levels that have run out
+            boolean selected = false;
+
+            while (depth > 0 && !selected) {
+                int level = depth - 1;
+                int colNum = colStack[level];
+
+                if (indexStack[level] != -1) {
+                    int mRow = colRows[colNum * gridDimensions + indexStack[level]];
+
+                    uncoverRow(mRow, colNum);
+                    grid.setCell(mRow / (gridDimensions * gridDimensions), (mRow / gridDimensions) % gridDimensions,
+                            -1);
+
+                    if (stats != null) {
+                        stats.backtrack();
+                    }
+                }
+
+                int index = ++indexStack[level];
+
+                if (index == colSizes[colNum]) {
+                    uncover(colNum);
+
+                    if (stats != null) {
+                        stats.uncover(1);
+                        stats.exitNode();
+                    }
+
+                    depth--;
+                } else {
+                    int mRow = colRows[colNum * gridDimensions + index];
+
+                    grid.setCell(mRow / (gridDimensions * gridDimensions), (mRow / gridDimensions) % gridDimensions,
+                            mRow % gridDimensions);
+                    coverRow(mRow, colNum);
+
+                    selected = true;
+                }
+            }
+
+            if (!selected) {
+                break;
+            }
+        }
+
+        // Always uncover so the matrix can be reused, the solution stays in the grid
+        while (depth > 0) {
+            depth--;
+
+            uncoverRow(colRows[colStack[depth] * gridDimensions + indexStack[depth]], colStack[depth]);
+            uncover(colStack[depth]);
+
+            if (stats != null) {
+                stats.uncover(1);
+            }
+        }
+
+        return solved;
+    }
+
+    private void coverRow(int rowNum, int colNum) {
+        // Cover the columns of a selected row besides the one it was chosen for
+        for (int k = 4 * rowNum; k < 4 * rowNum + 4; k++) {
+            if (rowColumns[k] != colNum) {
+                cover(rowColumns[k]);
+            }
+        }
+
+        if (stats != null) {
+            stats.cover(3);
+        }
+    }
+
+    private void uncoverRow(int rowNum, int colNum) {
+        for (int k = 4 * rowNum + 3; k >= 4 * rowNum; k--) {
+            if (rowColumns[k] != colNum) {
+                uncover(rowColumns[k]);
+            }
+        }
+
+        if (stats != null) {
+            stats.uncover(3);
+        }
+    }
+
+    private int findMinCol() {
+        /*
+         * Return index of the active column with the fewest live rows, or -1 if
+         * there are none. A column with 0 or 1 rows can't be beaten
+         */
+        int minCol = -1;
+
+        for (int i = nextActive[numCols]; i != numCols; i = nextActive[i]) {
+            if (minCol == -1 || colSizes[i] < colSizes[minCol]) {
+                minCol = i;
+
+                if (colSizes[i] <= 1) {
+                    break;
+                }
+            }
+        }
+
+        return minCol;
+    }
+
+    private void cover(int colNum) {
+        /*
+         * Deactivate the column and remove each of its live rows from their other
+         * columns. The column's own row list is left alone for uncover()
+         */
+        colInclusion[colNum] = false;
+
+        nextActive[prevActive[colNum]] = nextActive[colNum];
+        prevActive[nextActive[colNum]] = prevActive[colNum];
+
+        int colBase = colNum * gridDimensions;
+
+        for (int i = 0; i < colSizes[colNum]; i++) {
+            int rowNum = colRows[colBase + i];
+
+            for (int k = 4 * rowNum; k < 4 * rowNum + 4; k++) {
+                if (rowColumns[k] != colNum) {
+                    removeFromCol(rowNum, k);
+                }
+            }
+        }
+    }
+
+    private void uncover(int colNum) {
+        // Exact reverse of cover(), so every swap is undone in turn
+        int colBase = colNum * gridDimensions;
+
+        for (int i = colSizes[colNum] - 1; i >= 0; i--) {
+            int rowNum = colRows[colBase + i];
+
+            for (int k = 4 * rowNum + 3; k >= 4 * rowNum; k--) {
+                if (rowColumns[k] != colNum) {
+                    colSizes[rowColumns[k]]++;
+                }
+            }
+        }
+
+        colInclusion[colNum] = true;
+
+        nextActive[prevActive[colNum]] = colNum;
+        prevActive[nextActive[colNum]] = colNum;
+    }
+
+    private void removeFromCol(int rowNum, int rowColIndex) {
+        /*
+         * Swap the row with the last live row of the column and shrink the live
+         * count. The row then sits just past the live end until it is restored
+         */
+        int colNum = rowColumns[rowColIndex];
+        int colBase = colNum * gridDimensions;
+
+        int position = rowPositions[rowColIndex];
+        int lastPosition = --colSizes[colNum];
+        int lastRow = colRows[colBase + lastPosition];
+
+        // Columns are numbered in blocks of N^2 per constraint type, in rowColumns order
+        int lastRowColIndex = 4 * lastRow + colNum / (gridDimensions * gridDimensions);
+
+        colRows[colBase + position] = lastRow;
+        rowPositions[lastRowColIndex] = position;
+
+        colRows[colBase + lastPosition] = rowNum;
+        rowPositions[rowColIndex] = lastPosition;
+    }
+
+    // Helper methods that return column of constraints for a given row
+    private int cellConstraintByRow(int rowNum) {
+        return rowNum / gridDimensions;
+    }
+
+    private int rowConstraintByRow(int rowNum) {
+        return (gridDimensions * gridDimensions) + gridDimensions * (rowNum / (gridDimensions * gridDimensions))
+                + rowNum % gridDimensions;
+    }
+
+    private int colConstraintByRow(int rowNum) {
+        return 2 * gridDimensions * gridDimensions + rowNum % (gridDimensions * gridDimensions);
+    }
+
+    private int boxConstraintByRow(int rowNum) {
+        int gridRow = rowNum / (gridDimensions * gridDimensions);
+        int gridCol = (rowNum / gridDimensions) % gridDimensions;
+        int box = (gridRow / boxSize) * boxSize + gridCol / boxSize;
+
+        return 3 * gridDimensions * gridDimensions + gridDimensions * box + rowNum % gridDimensions;
+    }
+} // end of class SparseAlgorXSolver
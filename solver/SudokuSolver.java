@@ -12,6 +12,11 @@ import grid.SudokuGrid;
  */
 public abstract class SudokuSolver
 {
+    /**
+     * Statistics of the last solve, null when statistics are disabled.
+     */
+    protected SolverStats stats;
+
 
     /**
      * Solves the input grid.  Different solvers should override this to implement
@@ -24,4 +29,43 @@ public abstract class SudokuSolver
      */
     public abstract boolean solve(SudokuGrid grid);
 
+
+    /**
+     * Turns recording of search statistics on or off.  Statistics are off by
+     * default, and then cost solvers only a null check per search event.
+     *
+     * @param enabled True to record statistics for subsequent solves.
+     */
+    public void setStatsEnabled(boolean enabled) {
+        stats = enabled ? new SolverStats() : null;
+    }
+
+
+    /**
+     * @return Statistics recorded during the last solve, or null if statistics
+     *          are disabled.
+     */
+    public SolverStats getStats() {
+        return stats;
+    }
+
+
+    /**
+     * Releases anything the solver keeps between solves, such as worker
+     * threads.  Does nothing by default.  A solver that is used again after
+     * this acquires them again.
+     */
+    public void close() {
+    }
+
+
+    /**
+     * Clears the statistics at the start of a solve, if enabled.
+     */
+    protected void resetStats() {
+        if (stats != null) {
+            stats.reset();
+        }
+    }
+
 } // end of class SudokuSolver